@@ -0,0 +1,45 @@
+package bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import interpreter.command.Command;
+import interpreter.util.ExecutionContext;
+import lexical.LexicalAnalysis;
+import lexical.SourceBuffer;
+import syntatic.SyntaticAnalysis;
+
+// Bytes alocados por iteração de um laço aritmético no interpretador.
+// Uso: java bench.AllocBench [iteracoes] [repeticoes]
+public class AllocBench {
+
+    public static void main(String[] args) {
+        int n = Bench.arg(args, 0, 1000000);
+        int rounds = Bench.arg(args, 1, 5);
+
+        String src =
+            "def i = 0, s = 0\n" +
+            "while (i < " + n + ") {\n" +
+            "    s += i % 7\n" +
+            "    if (s > 1000) s -= 1000\n" +
+            "    i += 1\n" +
+            "}\n";
+
+        for (int r = 0; r < rounds; r++) {
+            SyntaticAnalysis s = new SyntaticAnalysis(new LexicalAnalysis(new SourceBuffer(src)));
+            Command c = s.start();
+            ExecutionContext ctx = new ExecutionContext(s.getSlots(),
+                new ByteArrayInputStream(new byte[0]), new PrintStream(OutputStream.nullOutputStream()));
+
+            long bytes = Bench.allocated();
+            long t = System.nanoTime();
+            c.execute(ctx);
+            t = System.nanoTime() - t;
+            bytes = Bench.allocated() - bytes;
+
+            Bench.report("loop iteration", n, t, bytes);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import interpreter.expr.AccessExpr;
+import interpreter.expr.Variable;
+import interpreter.value.ArrayValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Memória ocupada por arranjos numéricos grandes: lista de NumberValue
+// (o formato antigo), ArrayValue em int[] e o mesmo arranjo depois de
+// migrar para Value<?>[]. Mede também a leitura de todos os elementos
+// por AccessExpr.access e, sem encaixotar, por AccessExpr.getInt.
+// Uso: java -Xmx2g bench.ArrayMemBench [tamanhos...]
+public class ArrayMemBench {
+
+    public static void main(String[] args) {
+        int[] sizes = { 1000000, 10000000 };
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++)
+                sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        for (int n : sizes) {
+            long before = used();
+            List<Value<?>> boxed = new ArrayList<Value<?>>(n);
+            for (int i = 0; i < n; i++)
+                boxed.add(NumberValue.of(i));
+            report("list of NumberValue", n, used() - before);
+            // mantém a lista viva até a medição
+            if (boxed.size() != n)
+                return;
+            boxed = null;
+
+            before = used();
+            int[] ints = new int[n];
+            for (int i = 0; i < n; i++)
+                ints[i] = i;
+            ArrayValue av = new ArrayValue(ints);
+            ints = null;
+            report("ArrayValue int[]", n, used() - before);
+            read("ArrayValue int[] read", av);
+            readInt("ArrayValue int[] getInt", av);
+
+            av.set(0, new TextValue("x"));
+            av.set(0, NumberValue.ZERO);
+            report("ArrayValue migrated", n, used() - before);
+            read("ArrayValue migrated read", av);
+            readInt("ArrayValue migrated getInt", av);
+            av = null;
+        }
+    }
+
+    static void read(String name, ArrayValue av) {
+        int n = av.size();
+        long bytes = Bench.allocated();
+        long t = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < n; i++)
+            sum += ((NumberValue) AccessExpr.access(1, av, NumberValue.of(i))).intValue();
+        t = System.nanoTime() - t;
+        bytes = Bench.allocated() - bytes;
+
+        if (sum < 0)
+            System.out.println(sum);
+        Bench.report(name, n, t, bytes);
+    }
+
+    static void readInt(String name, ArrayValue av) {
+        AccessExpr ae = new AccessExpr(1, new Variable(1, "a"), new Variable(1, "i"));
+        int n = av.size();
+        long bytes = Bench.allocated();
+        long t = System.nanoTime();
+        long sum = 0;
+        for (int i = 0; i < n; i++)
+            sum += ae.getInt(av, NumberValue.of(i), 1);
+        t = System.nanoTime() - t;
+        bytes = Bench.allocated() - bytes;
+
+        if (sum < 0)
+            System.out.println(sum);
+        Bench.report(name, n, t, bytes);
+    }
+
+    static void report(String name, int n, long bytes) {
+        System.out.printf("%-28s %12d elements %10.2f MB %8.2f B/element\n",
+            name, n, bytes / 1e6, (double) bytes / n);
+    }
+
+    static long used() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+}
@@ -0,0 +1,31 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+
+public class Bench {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Bench() {
+    }
+
+    public static long allocated() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    public static int arg(String[] args, int index, int def) {
+        return args.length > index ? Integer.parseInt(args[index]) : def;
+    }
+
+    public static void report(String name, long nanos, long bytes) {
+        System.out.printf("%-28s %10.2f ms %12.2f MB allocated\n",
+            name, nanos / 1e6, bytes / 1e6);
+    }
+
+    public static void report(String name, long ops, long nanos, long bytes) {
+        System.out.printf("%-28s %12d ops %10.2f ns/op %10.2f B/op\n",
+            name, ops, (double) nanos / ops, (double) bytes / ops);
+    }
+
+}
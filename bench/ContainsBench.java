@@ -0,0 +1,95 @@
+package bench;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import interpreter.expr.BinaryExpr;
+import interpreter.value.ArrayValue;
+import interpreter.value.BooleanValue;
+import interpreter.value.MapValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// `x in c` repetido sobre coleções grandes: busca linear no arranjo
+// contra o índice de hash que o arranjo monta, para arranjos de números
+// (int[]) e de textos, e a busca de chave em mapa. A primeira rodada
+// indexada inclui a montagem do índice.
+// Uso: java bench.ContainsBench [buscas] [tamanhos...]
+public class ContainsBench {
+
+    public static void main(String[] args) {
+        int lookups = Bench.arg(args, 0, 2000);
+        int[] sizes = { 10000, 1000000 };
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++)
+                sizes[i - 1] = Integer.parseInt(args[i]);
+        }
+
+        for (int n : sizes) {
+            int[] ints = new int[n];
+            Value<?>[] texts = new Value<?>[n];
+            Map<String, Value<?>> map = new HashMap<String, Value<?>>();
+            for (int i = 0; i < n; i++) {
+                ints[i] = i * 2;
+                texts[i] = new TextValue("k" + i * 2);
+                map.put("k" + i * 2, NumberValue.of(i));
+            }
+
+            // metade das buscas acha o valor
+            Value<?>[] numberKeys = new Value<?>[lookups];
+            Value<?>[] textKeys = new Value<?>[lookups];
+            for (int i = 0; i < lookups; i++) {
+                int x = (int) ((long) i * n / lookups);
+                numberKeys[i] = NumberValue.of(x);
+                textKeys[i] = new TextValue("k" + x);
+            }
+
+            ArrayValue numbers = new ArrayValue(ints);
+            run("int[] " + n + " linear", numbers, numberKeys, true);
+            run("int[] " + n + " indexed+build", numbers, numberKeys, false);
+            run("int[] " + n + " indexed", numbers, numberKeys, false);
+
+            ArrayValue words = new ArrayValue(texts);
+            run("text " + n + " linear", words, textKeys, true);
+            run("text " + n + " indexed+build", words, textKeys, false);
+            run("text " + n + " indexed", words, textKeys, false);
+
+            run("map " + n + " key", new MapValue(map), textKeys, false);
+        }
+    }
+
+    static void run(String name, Value<?> collection, Value<?>[] keys, boolean linear) {
+        long bytes = Bench.allocated();
+        long t = System.nanoTime();
+        int found = 0;
+        for (Value<?> k : keys) {
+            boolean in = linear ? scan((ArrayValue) collection, k)
+                : ((BooleanValue) BinaryExpr.containsOp(1, k, collection)).booleanValue();
+            if (in)
+                found++;
+        }
+        t = System.nanoTime() - t;
+        bytes = Bench.allocated() - bytes;
+
+        Bench.report(name + " (" + found + " found)", keys.length, t, bytes);
+    }
+
+    // o que `in` fazia sem índice: compara elemento a elemento
+    static boolean scan(ArrayValue av, Value<?> v) {
+        if (av.isInts()) {
+            int x = ((NumberValue) v).intValue();
+            for (int i = 0; i < av.size(); i++)
+                if (av.getInt(i) == x)
+                    return true;
+            return false;
+        }
+
+        for (int i = 0; i < av.size(); i++)
+            if (v.equals(av.get(i)))
+                return true;
+        return false;
+    }
+
+}
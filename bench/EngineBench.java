@@ -0,0 +1,97 @@
+package bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import interpreter.closure.ClosureCompiler;
+import interpreter.command.Command;
+import interpreter.jvm.JvmCompiler;
+import interpreter.util.ExecutionContext;
+import interpreter.vm.Bytecode;
+import interpreter.vm.BytecodeCompiler;
+import interpreter.vm.VM;
+import lexical.LexicalAnalysis;
+import lexical.SourceBuffer;
+import syntatic.SyntaticAnalysis;
+
+// Compara os motores de execução com os mesmos scripts.
+// Uso: java bench.EngineBench [repeticoes]
+public class EngineBench {
+
+    static final String[][] SCRIPTS = {
+        { "loop",
+          "def i = 0, s = 0\n" +
+          "while (i < 2000000) {\n" +
+          "    s += i % 7\n" +
+          "    i += 1\n" +
+          "}\n" +
+          "println(s)\n" },
+        { "nested-for",
+          "def t = 0\n" +
+          "for (def i = 0; i < 1000; i += 1)\n" +
+          "    for (def j = 0; j < 1000; j += 1)\n" +
+          "        if (j % 3 == 0) t += 1 else t -= 1\n" +
+          "println(t)\n" },
+        { "strings",
+          "def s = '', i = 0\n" +
+          "while (i < 3000) {\n" +
+          "    s = s + 'x' + i\n" +
+          "    i += 1\n" +
+          "}\n" +
+          "println(s == '')\n" },
+        { "report",
+          "def s = '', i = 0\n" +
+          "while (i < 20000) {\n" +
+          "    s = s + 'line ' + i + ': ok; '\n" +
+          "    s += 'done. '\n" +
+          "    i += 1\n" +
+          "}\n" +
+          "println(s == '')\n" },
+        { "guards",
+          "def i = 0, t = 0\n" +
+          "while (i < 2000000) {\n" +
+          "    if (i % 4 == 0 && (i * 7 % 13 + i % 11 * 3) > 9) t += 1\n" +
+          "    if (i % 3 != 0 || (i * 5 % 17 + i % 19 * 2) > 20) t -= 1\n" +
+          "    i += 1\n" +
+          "}\n" +
+          "println(t)\n" },
+    };
+
+    public static void main(String[] args) {
+        int rounds = Bench.arg(args, 0, 5);
+        for (String[] script : SCRIPTS) {
+            for (int r = 0; r < rounds; r++) {
+                run(script[0] + " tree", script[1], "tree");
+                run(script[0] + " vm", script[1], "vm");
+                run(script[0] + " closure", script[1], "closure");
+                run(script[0] + " jvm", script[1], "jvm");
+            }
+        }
+    }
+
+    static void run(String name, String src, String engine) {
+        SyntaticAnalysis s = new SyntaticAnalysis(new LexicalAnalysis(new SourceBuffer(src)));
+        Command c = s.start();
+        ExecutionContext ctx = new ExecutionContext(s.getSlots(),
+            new ByteArrayInputStream(new byte[0]), new PrintStream(OutputStream.nullOutputStream()));
+
+        long bytes = Bench.allocated();
+        long t = System.nanoTime();
+        if (engine.equals("vm")) {
+            Bytecode bc = BytecodeCompiler.compile(c);
+            VM.run(bc, ctx);
+        } else if (engine.equals("closure")) {
+            ClosureCompiler.compile(c).run(ctx);
+        } else if (engine.equals("jvm")) {
+            JvmCompiler.compile(c, s.getSlots().size()).run(ctx);
+        } else {
+            c.execute(ctx);
+        }
+        t = System.nanoTime() - t;
+        bytes = Bench.allocated() - bytes;
+
+        Bench.report(name, t, bytes);
+    }
+
+}
@@ -0,0 +1,72 @@
+package bench;
+
+import lexical.Lexeme;
+import lexical.LexicalAnalysis;
+import lexical.SourceBuffer;
+import lexical.TokenType;
+
+// Uso: java bench.LexerBench [linhas] [repeticoes]
+public class LexerBench {
+
+    public static void main(String[] args) {
+        int lines = Bench.arg(args, 0, 100000);
+        int rounds = Bench.arg(args, 1, 10);
+
+        byte[] src = script(lines).getBytes();
+        for (int r = 0; r < rounds; r++) {
+            long bytes = Bench.allocated();
+            long t = System.nanoTime();
+
+            long tokens = lex(src);
+
+            t = System.nanoTime() - t;
+            bytes = Bench.allocated() - bytes;
+            Bench.report("lex (round " + r + ")", tokens, t, bytes);
+
+            bytes = Bench.allocated();
+            t = System.nanoTime();
+
+            tokens = new LexicalAnalysis(new SourceBuffer(src)).tokenize().size();
+
+            t = System.nanoTime() - t;
+            bytes = Bench.allocated() - bytes;
+            Bench.report("tokenize (round " + r + ")", tokens, t, bytes);
+        }
+    }
+
+    private static long lex(byte[] src) {
+        LexicalAnalysis l = new LexicalAnalysis(new SourceBuffer(src));
+
+        long tokens = 0;
+        Lexeme lex;
+        do {
+            lex = l.nextToken();
+            tokens++;
+        } while (lex.type != TokenType.END_OF_FILE &&
+                 lex.type != TokenType.INVALID_TOKEN);
+
+        return tokens;
+    }
+
+    static String script(int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            switch (i % 4) {
+                case 0:
+                    sb.append("def counter_" + i + " = " + (i * 7919) + "\n");
+                    break;
+                case 1:
+                    sb.append("println('uma linha de texto um pouco mais longa " + i + "')\n");
+                    break;
+                case 2:
+                    sb.append("for (def i = 0; i < 10; i += 1) total += i * 2\n");
+                    break;
+                default:
+                    sb.append("if (total >= 100 && total != 7) total -= 1 // fim\n");
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+}
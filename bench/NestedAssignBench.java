@@ -0,0 +1,68 @@
+package bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.expr.SetExpr;
+import interpreter.util.ExecutionContext;
+import lexical.LexicalAnalysis;
+import lexical.SourceBuffer;
+import syntatic.SyntaticAnalysis;
+
+// Atribuição composta em elemento aninhado (contagem em mapa de
+// registros): AssignCommand, que resolve o elemento uma vez, contra ler
+// pelo expr() e escrever pelo setValue(), percorrendo a cadeia duas vezes.
+// Uso: java bench.NestedAssignBench [execucoes] [repeticoes]
+public class NestedAssignBench {
+
+    static final String[] SITES = {
+        "h[k].count += 1",
+        "g[i][j] += 1",
+    };
+
+    public static void main(String[] args) {
+        int n = Bench.arg(args, 0, 5000000);
+        int rounds = Bench.arg(args, 1, 5);
+
+        String setup =
+            "def h = [a: [count: 0], b: [count: 0]], k = 'b'\n" +
+            "def g = [[0, 0], [0, 0, 0]], i = 1, j = 2\n";
+
+        for (int r = 0; r < rounds; r++) {
+            for (String site : SITES) {
+                SyntaticAnalysis s = new SyntaticAnalysis(new LexicalAnalysis(new SourceBuffer(setup + site + "\n")));
+                List<Command> cmds = ((BlocksCommand) s.start()).getCommands();
+                ExecutionContext ctx = new ExecutionContext(s.getSlots(),
+                    new ByteArrayInputStream(new byte[0]), new PrintStream(OutputStream.nullOutputStream()));
+                for (int c = 0; c < cmds.size() - 1; c++)
+                    cmds.get(c).execute(ctx);
+
+                AssignCommand ac = (AssignCommand) cmds.get(cmds.size() - 1);
+                run(site + " located", ac, ctx, n, false);
+                run(site + " two walks", ac, ctx, n, true);
+            }
+        }
+    }
+
+    static void run(String name, AssignCommand ac, ExecutionContext ctx, int n, boolean twice) {
+        SetExpr lhs = ac.getLhs();
+        long bytes = Bench.allocated();
+        long t = System.nanoTime();
+        for (int k = 0; k < n; k++) {
+            if (twice)
+                lhs.setValue(ctx, AssignCommand.combine(ac.getLine(), ac.getOp(), lhs.expr(ctx), ac.getRhs().expr(ctx)));
+            else
+                ac.execute(ctx);
+        }
+        t = System.nanoTime() - t;
+        bytes = Bench.allocated() - bytes;
+
+        Bench.report(name, n, t, bytes);
+    }
+
+}
@@ -0,0 +1,69 @@
+package bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import interpreter.command.Command;
+import lexical.LexicalAnalysis;
+import lexical.SourceBuffer;
+import syntatic.SyntaticAnalysis;
+
+// Uso: java bench.ParserBench [linhas] [lazy|packed]
+public class ParserBench {
+
+    public static void main(String[] args) {
+        int lines = Bench.arg(args, 0, 100000);
+        boolean packed = args.length > 1 && args[1].equals("packed");
+
+        byte[] src = script(lines).getBytes();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            pool.resetPeakUsage();
+
+        long t = System.nanoTime();
+        LexicalAnalysis l = new LexicalAnalysis(new SourceBuffer(src));
+        SyntaticAnalysis s = packed ? new SyntaticAnalysis(l.tokenize())
+                                    : new SyntaticAnalysis(l);
+        Command c = s.start();
+        t = System.nanoTime() - t;
+
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        }
+
+        System.gc();
+        long live = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+
+        System.out.printf("%s, %d lines: parse %.1f ms, peak heap %.1f MB, live after parse %.1f MB\n",
+            packed ? "packed" : "lazy", lines, t / 1e6, peak / 1e6, live / 1e6);
+
+        // Mantém o analisador e a árvore vivos até a medição.
+        if (s.hashCode() == c.hashCode())
+            System.out.println();
+    }
+
+    static String script(int lines) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("def total = 0, i = 0\n");
+        for (int i = 1; i < lines; i++) {
+            switch (i % 4) {
+                case 0:
+                    sb.append("def v" + i + " = total * 2 + " + i + "\n");
+                    break;
+                case 1:
+                    sb.append("println('linha numero ' + " + i + ")\n");
+                    break;
+                case 2:
+                    sb.append("for (i = 0; i < 3; i += 1) total += i\n");
+                    break;
+                default:
+                    sb.append("if (total >= 100 && total != 7) total -= 1 else total += 2\n");
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+}
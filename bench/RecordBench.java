@@ -0,0 +1,85 @@
+package bench;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import interpreter.expr.AccessExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.PropertyAccessExpr;
+import interpreter.expr.Variable;
+import interpreter.value.MapValue;
+import interpreter.value.NumberValue;
+import interpreter.value.Shape;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Registros pequenos com as mesmas chaves ([id:, qty:, price:]): memória
+// com HashMap por registro e com shape compartilhado, e leitura de .qty
+// pelo caminho genérico e pelo cache de shape do PropertyAccessExpr.
+// Uso: java -Xmx2g bench.RecordBench [registros] [repeticoes]
+public class RecordBench {
+
+    public static void main(String[] args) {
+        int n = Bench.arg(args, 0, 1000000);
+        int rounds = Bench.arg(args, 1, 3);
+
+        Shape shape = Shape.EMPTY.with("id").with("qty").with("price");
+        TextValue qty = new TextValue("qty");
+        PropertyAccessExpr site = (PropertyAccessExpr) AccessExpr.create(1,
+            new Variable(1, "r"), new ConstExpr(1, qty));
+
+        for (int r = 0; r < rounds; r++) {
+            long before = used();
+            MapValue[] hashed = new MapValue[n];
+            for (int i = 0; i < n; i++) {
+                Map<String, Value<?>> m = new HashMap<String, Value<?>>();
+                m.put("id", NumberValue.of(i));
+                m.put("qty", NumberValue.of(i % 10));
+                m.put("price", NumberValue.of(3));
+                hashed[i] = new MapValue(m);
+            }
+            report("HashMap records", n, used() - before);
+            read("HashMap .qty generic", hashed, qty, null);
+
+            hashed = null;
+            before = used();
+            MapValue[] shaped = new MapValue[n];
+            for (int i = 0; i < n; i++)
+                shaped[i] = new MapValue(shape, new Value<?>[] {
+                    NumberValue.of(i), NumberValue.of(i % 10), NumberValue.of(3) });
+            report("shaped records", n, used() - before);
+            read("shaped .qty generic", shaped, qty, null);
+            read("shaped .qty cached", shaped, qty, site);
+            shaped = null;
+        }
+    }
+
+    static void read(String name, MapValue[] records, TextValue key, PropertyAccessExpr site) {
+        long bytes = Bench.allocated();
+        long t = System.nanoTime();
+        long sum = 0;
+        for (MapValue m : records) {
+            Value<?> v = site != null ? site.get(m) : AccessExpr.access(1, m, key);
+            sum += ((NumberValue) v).intValue();
+        }
+        t = System.nanoTime() - t;
+        bytes = Bench.allocated() - bytes;
+
+        if (sum < 0)
+            System.out.println(sum);
+        Bench.report(name, records.length, t, bytes);
+    }
+
+    static void report(String name, int n, long bytes) {
+        System.out.printf("%-28s %12d records %10.2f MB %8.2f B/record\n",
+            name, n, bytes / 1e6, (double) bytes / n);
+    }
+
+    static long used() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+}
@@ -0,0 +1,97 @@
+package bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.Command;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.ArrayIndexByVar;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.VarCompareConst;
+import interpreter.expr.Variable;
+import interpreter.util.ExecutionContext;
+import interpreter.util.SlotTable;
+import interpreter.value.ArrayValue;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Cada superinstrução contra o nó genérico equivalente, executando o nó
+// isolado num laço Java.
+// Uso: java bench.SuperBench [execucoes] [repeticoes]
+public class SuperBench {
+
+    public static void main(String[] args) {
+        int n = Bench.arg(args, 0, 20000000);
+        int rounds = Bench.arg(args, 1, 5);
+
+        SlotTable slots = new SlotTable();
+        Variable i = variable(slots, "i");
+        Variable j = variable(slots, "j");
+        Variable s = variable(slots, "s");
+        Variable a = variable(slots, "a");
+        ConstExpr limit = new ConstExpr(1, NumberValue.of(1000));
+        ConstExpr one = new ConstExpr(1, NumberValue.ONE);
+        BinaryExpr sum = new BinaryExpr(1, i, BinaryExpr.Op.AddOp, j);
+
+        List<Value<?>> list = new ArrayList<Value<?>>();
+        for (int k = 0; k < 16; k++)
+            list.add(NumberValue.of(k));
+
+        ExecutionContext ctx = new ExecutionContext(slots,
+            new ByteArrayInputStream(new byte[0]), new PrintStream(OutputStream.nullOutputStream()));
+        ctx.write(i.getSlot(), NumberValue.of(7));
+        ctx.write(j.getSlot(), NumberValue.of(5));
+        ctx.write(a.getSlot(), new ArrayValue(list));
+
+        for (int r = 0; r < rounds; r++) {
+            run("var < const generic", new BinaryExpr(1, i, BinaryExpr.Op.LowerThanOp, limit), ctx, n);
+            run("var < const fused", VarCompareConst.create(1, i, BinaryExpr.Op.LowerThanOp, limit), ctx, n);
+
+            ctx.write(s.getSlot(), NumberValue.ZERO);
+            run("var += const generic", new AssignCommand(1, s, AssignCommand.Op.AddOp, one), ctx, n);
+            ctx.write(s.getSlot(), NumberValue.ZERO);
+            run("var += const fused", AssignCommand.create(1, s, AssignCommand.Op.AddOp, one), ctx, n);
+
+            run("var = var + var generic", new AssignCommand(1, s, AssignCommand.Op.StdOp, sum), ctx, n);
+            run("var = var + var fused", AssignCommand.create(1, s, AssignCommand.Op.StdOp, sum), ctx, n);
+
+            run("a[var] generic", new AccessExpr(1, a, j), ctx, n);
+            run("a[var] fused", ArrayIndexByVar.create(1, a, j), ctx, n);
+        }
+    }
+
+    private static Variable variable(SlotTable slots, String name) {
+        Variable v = new Variable(1, name);
+        v.resolve(slots.slot(name));
+        return v;
+    }
+
+    static void run(String name, Expr expr, ExecutionContext ctx, int n) {
+        long bytes = Bench.allocated();
+        long t = System.nanoTime();
+        for (int k = 0; k < n; k++)
+            expr.expr(ctx);
+        t = System.nanoTime() - t;
+        bytes = Bench.allocated() - bytes;
+
+        Bench.report(name, n, t, bytes);
+    }
+
+    static void run(String name, Command cmd, ExecutionContext ctx, int n) {
+        long bytes = Bench.allocated();
+        long t = System.nanoTime();
+        for (int k = 0; k < n; k++)
+            cmd.execute(ctx);
+        t = System.nanoTime() - t;
+        bytes = Bench.allocated() - bytes;
+
+        Bench.report(name, n, t, bytes);
+    }
+
+}
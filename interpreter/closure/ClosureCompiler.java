@@ -0,0 +1,364 @@
+package interpreter.closure;
+
+import java.util.List;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.CountedForCommand;
+import interpreter.command.DeclarationType1Command;
+import interpreter.command.DeclarationType2Command;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.TypedAssignCommand;
+import interpreter.command.VarAddConstAssign;
+import interpreter.command.VarAddVarAssign;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.ArrayExpr;
+import interpreter.expr.ArrayIndexByVar;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CastExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.InvariantExpr;
+import interpreter.expr.PropertyAccessExpr;
+import interpreter.expr.SetExpr;
+import interpreter.expr.Specialization;
+import interpreter.expr.TypedBinaryExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.VarCompareConst;
+import interpreter.expr.Variable;
+import interpreter.value.ArrayValue;
+import interpreter.value.BooleanValue;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Traduz a árvore para uma árvore de lambdas. O operador, o slot das
+// variáveis e o tipo de cada nó são resolvidos aqui, uma vez; cada lambda
+// só chama os filhos e o método do operador. Nós desconhecidos são
+// executados pela própria árvore.
+public class ClosureCompiler {
+
+    private ClosureCompiler() {
+    }
+
+    public static CompiledCommand compile(Command cmd) {
+        if (cmd instanceof BlocksCommand) {
+            return block(((BlocksCommand) cmd).getCommands());
+        } else if (cmd instanceof VarAddConstAssign || cmd instanceof VarAddVarAssign) {
+            // as superinstruções já fazem tudo num só passo
+            return cmd::execute;
+        } else if (cmd instanceof AssignCommand) {
+            return assign((AssignCommand) cmd);
+        } else if (cmd instanceof DeclarationType1Command) {
+            DeclarationType1Command dc = (DeclarationType1Command) cmd;
+            return declaration(dc.getLhs(), dc.getRhs());
+        } else if (cmd instanceof DeclarationType2Command) {
+            DeclarationType2Command dc = (DeclarationType2Command) cmd;
+            return declaration(dc.getLhs(), dc.getRhs());
+        } else if (cmd instanceof PrintCommand) {
+            return print((PrintCommand) cmd);
+        } else if (cmd instanceof IfCommand) {
+            return conditional((IfCommand) cmd);
+        } else if (cmd instanceof WhileCommand) {
+            WhileCommand wc = (WhileCommand) cmd;
+            CompiledExpr cond = compile(wc.getExpr());
+            CompiledCommand body = compile(wc.getCommands());
+            return ctx -> {
+                while (test(cond.eval(ctx)))
+                    body.run(ctx);
+            };
+        } else if (cmd instanceof ForCommand) {
+            return loop((ForCommand) cmd);
+        }
+
+        return cmd::execute;
+    }
+
+    public static CompiledExpr compile(Expr expr) {
+        if (expr == null) {
+            return ctx -> null;
+        } else if (expr instanceof ConstExpr) {
+            Value<?> v = ((ConstExpr) expr).getValue();
+            return ctx -> v;
+        } else if (expr instanceof Variable) {
+            int slot = ((Variable) expr).getSlot();
+            return ctx -> ctx.read(slot);
+        } else if (expr instanceof VarCompareConst || expr instanceof ArrayIndexByVar) {
+            return expr::expr;
+        } else if (expr instanceof BinaryExpr) {
+            return binary((BinaryExpr) expr);
+        } else if (expr instanceof UnaryExpr) {
+            UnaryExpr ue = (UnaryExpr) expr;
+            CompiledExpr e = compile(ue.getExpr());
+            int line = ue.getLine();
+            UnaryExpr.Op op = ue.getOp();
+            return ctx -> UnaryExpr.evaluate(ctx, line, op, e.eval(ctx));
+        } else if (expr instanceof CastExpr) {
+            CastExpr ce = (CastExpr) expr;
+            CompiledExpr e = compile(ce.getExpr());
+            int line = ce.getLine();
+            CastExpr.Op op = ce.getOp();
+            return ctx -> CastExpr.evaluate(line, op, e.eval(ctx));
+        } else if (expr instanceof PropertyAccessExpr) {
+            PropertyAccessExpr pa = (PropertyAccessExpr) expr;
+            CompiledExpr base = compile(pa.getBase());
+            return ctx -> pa.get(base.eval(ctx));
+        } else if (expr instanceof AccessExpr) {
+            AccessExpr ae = (AccessExpr) expr;
+            CompiledExpr base = compile(ae.getBase());
+            CompiledExpr index = compile(ae.getIndex());
+            return ctx -> ae.get(base.eval(ctx), index.eval(ctx));
+        } else if (expr instanceof ArrayExpr) {
+            List<Expr> items = ((ArrayExpr) expr).getItems();
+            CompiledExpr[] values = new CompiledExpr[items.size()];
+            for (int i = 0; i < values.length; i++)
+                values[i] = compile(items.get(i));
+            return ctx -> {
+                Value<?>[] vs = new Value<?>[values.length];
+                for (int i = 0; i < vs.length; i++)
+                    vs[i] = values[i].eval(ctx);
+                return new ArrayValue(vs);
+            };
+        } else if (expr instanceof InvariantExpr) {
+            InvariantExpr ie = (InvariantExpr) expr;
+            CompiledExpr e = compile(ie.getExpr());
+            int slot = ie.getTemp().getSlot();
+            return ctx -> {
+                Value<?> v = ctx.read(slot);
+                if (v == InvariantExpr.UNSET) {
+                    v = e.eval(ctx);
+                    ctx.write(slot, v);
+                }
+                return v;
+            };
+        }
+
+        return expr::expr;
+    }
+
+    private static boolean test(Value<?> v) {
+        return v != null && v.eval();
+    }
+
+    private static CompiledCommand block(List<Command> cmds) {
+        CompiledCommand[] body = new CompiledCommand[cmds.size()];
+        for (int i = 0; i < body.length; i++)
+            body[i] = compile(cmds.get(i));
+
+        if (body.length == 1)
+            return body[0];
+
+        return ctx -> {
+            for (CompiledCommand c : body)
+                c.run(ctx);
+        };
+    }
+
+    private static CompiledCommand declaration(List<Variable> lhs, List<Expr> rhs) {
+        int[] slots = new int[lhs.size()];
+        CompiledExpr[] values = new CompiledExpr[lhs.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = lhs.get(i).getSlot();
+            values[i] = compile(i < rhs.size() ? rhs.get(i) : null);
+        }
+
+        return ctx -> {
+            for (int i = 0; i < slots.length; i++)
+                ctx.write(slots[i], values[i].eval(ctx));
+        };
+    }
+
+    private static CompiledCommand print(PrintCommand pc) {
+        CompiledExpr e = compile(pc.getExpr());
+        boolean newline = pc.isNewline();
+        return ctx -> {
+            Value<?> v = e.eval(ctx);
+            ctx.out().print(v == null ? "null" : v.toString());
+            if (newline)
+                ctx.out().println();
+        };
+    }
+
+    private static CompiledCommand conditional(IfCommand ic) {
+        CompiledExpr cond = compile(ic.getExpr());
+        CompiledCommand then = compile(ic.getCommandsIf());
+        if (ic.getCommandsElse() == null) {
+            return ctx -> {
+                if (test(cond.eval(ctx)))
+                    then.run(ctx);
+            };
+        }
+
+        CompiledCommand otherwise = compile(ic.getCommandsElse());
+        return ctx -> {
+            if (test(cond.eval(ctx)))
+                then.run(ctx);
+            else
+                otherwise.run(ctx);
+        };
+    }
+
+    private static CompiledCommand loop(ForCommand fc) {
+        CompiledCommand init = init(fc);
+        if (fc.getExpr() == null)
+            return init;
+
+        CompiledCommand loop = compileLoop(fc);
+        return ctx -> {
+            init.run(ctx);
+            loop.run(ctx);
+        };
+    }
+
+    // Só as voltas do for, sem a inicialização; usado para continuar um
+    // laço que começou na árvore.
+    public static CompiledCommand compileLoop(ForCommand fc) {
+        if (fc.getExpr() == null)
+            return ctx -> { };
+
+        return fc instanceof CountedForCommand ? counted((CountedForCommand) fc) : iterate(fc);
+    }
+
+    // Só as voltas do for, sem a inicialização.
+    private static CompiledCommand iterate(ForCommand fc) {
+        CompiledExpr cond = compile(fc.getExpr());
+        CompiledCommand body = compile(fc.getCommands());
+        CompiledCommand step = block(List.copyOf(fc.getRight()));
+        return ctx -> {
+            while (test(cond.eval(ctx))) {
+                body.run(ctx);
+                step.run(ctx);
+            }
+        };
+    }
+
+    private static CompiledCommand init(ForCommand fc) {
+        CompiledCommand decls = block(List.copyOf(fc.getLeftDecl()));
+        CompiledCommand assigns = block(List.copyOf(fc.getLeftAssign()));
+        return ctx -> {
+            decls.run(ctx);
+            assigns.run(ctx);
+        };
+    }
+
+    // Mesma execução de CountedForCommand, com o corpo compilado.
+    private static CompiledCommand counted(CountedForCommand fc) {
+        CompiledCommand generic = iterate(fc);
+        CompiledExpr bound = compile(fc.getBound());
+        CompiledCommand body = compile(fc.getCommands());
+        int slot = fc.getCounter().getSlot();
+        int step = fc.getStep();
+        boolean reads = fc.bodyReadsCounter();
+        BinaryExpr.Op cond = fc.getCondition();
+
+        return ctx -> {
+            Value<?> start = ctx.read(slot);
+            Value<?> limit = bound.eval(ctx);
+            if (!(start instanceof NumberValue) || !(limit instanceof NumberValue)) {
+                generic.run(ctx);
+                return;
+            }
+
+            int i = ((NumberValue) start).intValue();
+            int n = ((NumberValue) limit).intValue();
+            while (CountedForCommand.test(cond, i, n)) {
+                if (reads)
+                    ctx.write(slot, NumberValue.of(i));
+                body.run(ctx);
+                i += step;
+            }
+
+            ctx.write(slot, NumberValue.of(i));
+        };
+    }
+
+    private static CompiledCommand assign(AssignCommand ac) {
+        CompiledExpr rhs = compile(ac.getRhs());
+        SetExpr lhs = ac.getLhs();
+        int line = ac.getLine();
+
+        if (lhs instanceof Variable && ac instanceof TypedAssignCommand) {
+            int slot = ((Variable) lhs).getSlot();
+            Specialization s = ((TypedAssignCommand) ac).getSpecialization();
+            return ctx -> ctx.write(slot, s.apply(ctx.read(slot), rhs.eval(ctx)));
+        } else if (lhs instanceof Variable) {
+            int slot = ((Variable) lhs).getSlot();
+            switch (ac.getOp()) {
+                case StdOp:
+                    return ctx -> ctx.write(slot, rhs.eval(ctx));
+                case AddOp:
+                    return ctx -> ctx.write(slot, AssignCommand.addOp(line, ctx.read(slot), rhs.eval(ctx)));
+                case SubOp:
+                    return ctx -> ctx.write(slot, AssignCommand.subOp(line, ctx.read(slot), rhs.eval(ctx)));
+                case MulOp:
+                    return ctx -> ctx.write(slot, AssignCommand.mulOp(line, ctx.read(slot), rhs.eval(ctx)));
+                case DivOp:
+                    return ctx -> ctx.write(slot, AssignCommand.divOp(line, ctx.read(slot), rhs.eval(ctx)));
+                case ModOp:
+                    return ctx -> ctx.write(slot, AssignCommand.modOp(line, ctx.read(slot), rhs.eval(ctx)));
+                case PowerOp:
+                    return ctx -> ctx.write(slot, AssignCommand.powerOp(line, ctx.read(slot), rhs.eval(ctx)));
+                default:
+                    break;
+            }
+        } else if (ac.getOp() == AssignCommand.Op.StdOp) {
+            return ctx -> lhs.setValue(ctx, rhs.eval(ctx));
+        }
+
+        return ac::execute;
+    }
+
+    private static CompiledExpr binary(BinaryExpr be) {
+        CompiledExpr l = compile(be.getLeft());
+        CompiledExpr r = compile(be.getRight());
+        int line = be.getLine();
+
+        if (be instanceof TypedBinaryExpr) {
+            Specialization s = be.getSpecialization();
+            return ctx -> s.apply(l.eval(ctx), r.eval(ctx));
+        }
+
+        switch (be.getOp()) {
+            case AndOp:
+                return ctx -> BinaryExpr.truth(line, l.eval(ctx))
+                    ? BooleanValue.of(BinaryExpr.truth(line, r.eval(ctx))) : BooleanValue.FALSE;
+            case OrOp:
+                return ctx -> BinaryExpr.truth(line, l.eval(ctx))
+                    ? BooleanValue.TRUE : BooleanValue.of(BinaryExpr.truth(line, r.eval(ctx)));
+            case EqualOp:
+                return ctx -> BinaryExpr.equalOp(line, l.eval(ctx), r.eval(ctx));
+            case NotEqualOp:
+                return ctx -> BinaryExpr.notEqualOp(line, l.eval(ctx), r.eval(ctx));
+            case LowerThanOp:
+                return ctx -> BinaryExpr.lowerThanOp(line, l.eval(ctx), r.eval(ctx));
+            case LowerEqualOp:
+                return ctx -> BinaryExpr.lowerEqualOp(line, l.eval(ctx), r.eval(ctx));
+            case GreaterThanOp:
+                return ctx -> BinaryExpr.greaterThanOp(line, l.eval(ctx), r.eval(ctx));
+            case GreaterEqualOp:
+                return ctx -> BinaryExpr.greaterEqualOp(line, l.eval(ctx), r.eval(ctx));
+            case ContainsOp:
+                return ctx -> BinaryExpr.containsOp(line, l.eval(ctx), r.eval(ctx));
+            case NotContainsOp:
+                return ctx -> BinaryExpr.notContainsOp(line, l.eval(ctx), r.eval(ctx));
+            case AddOp:
+                return ctx -> BinaryExpr.addOp(line, l.eval(ctx), r.eval(ctx));
+            case SubOp:
+                return ctx -> BinaryExpr.subOp(line, l.eval(ctx), r.eval(ctx));
+            case MulOp:
+                return ctx -> BinaryExpr.mulOp(line, l.eval(ctx), r.eval(ctx));
+            case DivOp:
+                return ctx -> BinaryExpr.divOp(line, l.eval(ctx), r.eval(ctx));
+            case ModOp:
+                return ctx -> BinaryExpr.modOp(line, l.eval(ctx), r.eval(ctx));
+            case PowerOp:
+                return ctx -> BinaryExpr.powerOp(line, l.eval(ctx), r.eval(ctx));
+            default:
+                return be::expr;
+        }
+    }
+
+}
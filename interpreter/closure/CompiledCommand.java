@@ -0,0 +1,10 @@
+package interpreter.closure;
+
+import interpreter.util.ExecutionContext;
+
+@FunctionalInterface
+public interface CompiledCommand {
+
+    void run(ExecutionContext ctx);
+
+}
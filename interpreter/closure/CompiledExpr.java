@@ -0,0 +1,11 @@
+package interpreter.closure;
+
+import interpreter.util.ExecutionContext;
+import interpreter.value.Value;
+
+@FunctionalInterface
+public interface CompiledExpr {
+
+    Value<?> eval(ExecutionContext ctx);
+
+}
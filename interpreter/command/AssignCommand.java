@@ -1,9 +1,14 @@
 package interpreter.command;
 
+import interpreter.expr.AccessExpr;
 import interpreter.expr.Expr;
+import interpreter.expr.Location;
 import interpreter.expr.SetExpr;
+import interpreter.expr.Specialization;
+import interpreter.util.ExecutionContext;
 import interpreter.util.Utils;
 import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
 import interpreter.value.Value;
 
 public class AssignCommand extends Command {
@@ -22,6 +27,10 @@ public class AssignCommand extends Command {
     private Op op;
     private Expr rhs;
 
+    // Mesma estratégia de BinaryExpr para os operadores compostos.
+    private Specialization specialization;
+    private boolean generic;
+
     public AssignCommand(int line, SetExpr lhs, Op op, Expr rhs) {
         super(line);
 
@@ -30,146 +39,192 @@ public class AssignCommand extends Command {
         this.rhs = rhs;
     }
 
+    // Atribuição a partir do parser ou do otimizador: usa uma
+    // superinstrução quando a forma permite.
+    public static AssignCommand create(int line, SetExpr lhs, Op op, Expr rhs) {
+        AssignCommand ac = VarAddConstAssign.create(line, lhs, op, rhs);
+        if (ac == null)
+            ac = VarAddVarAssign.create(line, lhs, op, rhs);
+        if (ac == null)
+            ac = new AssignCommand(line, lhs, op, rhs);
+
+        return ac;
+    }
+
+    public SetExpr getLhs() {
+        return lhs;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public Expr getRhs() {
+        return rhs;
+    }
+
     @Override
-    public void execute() {
+    public void execute(ExecutionContext ctx) {
+        if (op == Op.StdOp) {
+            Value<?> rvalue = rhs.expr(ctx);
+            lhs.setValue(ctx, rvalue);
+        } else if (lhs instanceof AccessExpr) {
+            // a[i] op= v: o elemento é resolvido uma vez para ler e escrever
+            Location loc = ((AccessExpr) lhs).locate(ctx);
+            Value<?> rvalue = rhs.expr(ctx);
+            loc.set(specialized(loc.get(), rvalue));
+        } else {
+            Value<?> lvalue = lhs.expr(ctx);
+            Value<?> rvalue = rhs.expr(ctx);
+            lhs.setValue(ctx, specialized(lvalue, rvalue));
+        }
+    }
+
+    private Value<?> specialized(Value<?> lvalue, Value<?> rvalue) {
+        Specialization s = specialization;
+        if (s != null) {
+            if (s.accepts(lvalue, rvalue))
+                return s.apply(lvalue, rvalue);
+
+            specialization = null;
+            generic = true;
+        } else if (!generic) {
+            s = Specialization.forAssign(op, lvalue, rvalue);
+            if (s != null) {
+                specialization = s;
+                return s.apply(lvalue, rvalue);
+            }
+
+            generic = true;
+        }
+
+        return combine(super.getLine(), op, lvalue, rvalue);
+    }
+
+    // Valor resultante de uma atribuição composta (+=, -=, ...).
+    public static Value<?> combine(int line, Op op, Value<?> lvalue, Value<?> rvalue) {
+        Value<?> v = null;
         switch (op) {
-            case StdOp:
-                stdOp();
-                break;
             case AddOp:
-                addOp();
+                v = addOp(line, lvalue, rvalue);
                 break;
             case SubOp:
-                subOp();
+                v = subOp(line, lvalue, rvalue);
                 break;
             case MulOp:
-                mulOp();
+                v = mulOp(line, lvalue, rvalue);
                 break;
             case DivOp:
-                divOp();
+                v = divOp(line, lvalue, rvalue);
                 break;
             case ModOp:
-                modOp();
+                v = modOp(line, lvalue, rvalue);
                 break;
             case PowerOp:
-                powerOp();
+                v = powerOp(line, lvalue, rvalue);
                 break;
             default:
-                Utils.abort(super.getLine());
+                Utils.abort(line);
         }
-    }
 
-    private void stdOp() {
-        Value<?> rvalue = rhs.expr();
-        lhs.setValue(rvalue);
+        return v;
     }
 
-    private void addOp() {
-        Value<?> lvalue = lhs.expr();
-        Value<?> rvalue = rhs.expr();
+    public static Value<?> addOp(int line, Value<?> lvalue, Value<?> rvalue) {
+        if (lvalue instanceof TextValue) {
+            if (rvalue instanceof TextValue)
+                return ((TextValue) lvalue).concat((TextValue) rvalue);
+            if (rvalue instanceof NumberValue)
+                return ((TextValue) lvalue).concat(((NumberValue) rvalue).intValue());
+        }
 
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = new NumberValue(lv + rv);
-        lhs.setValue(res);
+        NumberValue res = NumberValue.of(lv + rv);
+        return res;
     }
 
-    private void subOp() {
-        Value<?> lvalue = lhs.expr();
-        Value<?> rvalue = rhs.expr();
-
+    public static Value<?> subOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = new NumberValue(lv - rv);
-        lhs.setValue(res);
+        NumberValue res = NumberValue.of(lv - rv);
+        return res;
     }
 
-    private void mulOp() {
-        Value<?> lvalue = lhs.expr();
-        Value<?> rvalue = rhs.expr();
-
+    public static Value<?> mulOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = new NumberValue(lv * rv);
-        lhs.setValue(res);
+        NumberValue res = NumberValue.of(lv * rv);
+        return res;
     }
 
-    private void divOp() {
-        Value<?> lvalue = lhs.expr();
-        Value<?> rvalue = rhs.expr();
-
+    public static Value<?> divOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = new NumberValue(lv / rv);
-        lhs.setValue(res);
+        NumberValue res = NumberValue.of(lv / rv);
+        return res;
     }
 
-    private void modOp() {
-        Value<?> lvalue = lhs.expr();
-        Value<?> rvalue = rhs.expr();
-
+    public static Value<?> modOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = new NumberValue(lv % rv);
-        lhs.setValue(res);
+        NumberValue res = NumberValue.of(lv % rv);
+        return res;
     }
 
-    private void powerOp() {
-        Value<?> lvalue = lhs.expr();
-        Value<?> rvalue = rhs.expr();
-
+    public static Value<?> powerOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = new NumberValue((int) Math.pow(lv, rv));
-        lhs.setValue(res);
+        NumberValue res = NumberValue.of((int) Math.pow(lv, rv));
+        return res;
     }
 
 }
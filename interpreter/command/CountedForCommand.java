@@ -0,0 +1,288 @@
+package interpreter.command;
+
+import java.util.ArrayList;
+
+import interpreter.expr.AccessExpr;
+import interpreter.expr.ArrayExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CastExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.InvariantExpr;
+import interpreter.expr.MapExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.tier.TierPolicy;
+import interpreter.util.ExecutionContext;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// for com contador inteiro: for (...; i < n; i += k), com n constante,
+// variável ou invariante do laço e k constante. O contador fica num int local e só é escrito
+// na variável antes do corpo (se o corpo o lê) e ao sair do laço. Se o
+// corpo atribui ao contador ou ao limite, usa-se o ForCommand comum.
+public class CountedForCommand extends ForCommand {
+
+    private Variable counter;
+    private BinaryExpr.Op cond;
+    private Expr bound;
+    private int step;
+    private boolean bodyReads;
+
+    private CountedForCommand(int line, ArrayList<DeclarationCommand> leftDecl, ArrayList<AssignCommand> leftAssign,
+            Expr expr, ArrayList<AssignCommand> right, Command cmds, Variable counter, Expr bound, int step) {
+        super(line, leftDecl, leftAssign, expr, right, cmds);
+
+        this.counter = counter;
+        this.cond = ((BinaryExpr) expr).getOp();
+        this.bound = bound;
+        this.step = step;
+        this.bodyReads = reads(cmds, counter.getName());
+    }
+
+    public Variable getCounter() {
+        return counter;
+    }
+
+    public BinaryExpr.Op getCondition() {
+        return cond;
+    }
+
+    public Expr getBound() {
+        return bound;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public boolean bodyReadsCounter() {
+        return bodyReads;
+    }
+
+    // Escolhe a versão contada quando o laço tem a forma esperada.
+    public static ForCommand create(int line, ArrayList<DeclarationCommand> leftDecl, ArrayList<AssignCommand> leftAssign,
+            Expr expr, ArrayList<AssignCommand> right, Command cmds) {
+        if (!(expr instanceof BinaryExpr) || right.size() != 1)
+            return new ForCommand(line, leftDecl, leftAssign, expr, right, cmds);
+
+        BinaryExpr be = (BinaryExpr) expr;
+        AssignCommand inc = right.get(0);
+        Expr bound = be.getRight();
+
+        boolean counted = be.getLeft() instanceof Variable
+            && isComparison(be.getOp())
+            && inc.getLhs() instanceof Variable
+            && ((Variable) inc.getLhs()).getName().equals(((Variable) be.getLeft()).getName())
+            && (inc.getOp() == AssignCommand.Op.AddOp || inc.getOp() == AssignCommand.Op.SubOp)
+            && isNumber(inc.getRhs())
+            && (isNumber(bound) || bound instanceof Variable || bound instanceof InvariantExpr);
+
+        if (!counted)
+            return new ForCommand(line, leftDecl, leftAssign, expr, right, cmds);
+
+        String name = ((Variable) be.getLeft()).getName();
+        if (assigns(cmds, name))
+            return new ForCommand(line, leftDecl, leftAssign, expr, right, cmds);
+
+        if (bound instanceof Variable) {
+            String limit = ((Variable) bound).getName();
+            if (limit.equals(name) || assigns(cmds, limit))
+                return new ForCommand(line, leftDecl, leftAssign, expr, right, cmds);
+        }
+
+        int step = ((NumberValue) ((ConstExpr) inc.getRhs()).getValue()).intValue();
+        if (inc.getOp() == AssignCommand.Op.SubOp)
+            step = -step;
+
+        return new CountedForCommand(line, leftDecl, leftAssign, expr, right, cmds,
+            (Variable) be.getLeft(), bound, step);
+    }
+
+    @Override
+    public void execute(ExecutionContext ctx) {
+        init(ctx);
+
+        TierPolicy tiers = ctx.tiers();
+        if (compiled() != null && tiers != null) {
+            compiled().run(ctx);
+            return;
+        }
+
+        int slot = counter.getSlot();
+        Value<?> start = ctx.read(slot);
+        Value<?> limit = bound.expr(ctx);
+        if (!(start instanceof NumberValue) || !(limit instanceof NumberValue)) {
+            loop(ctx, tiers);
+            return;
+        }
+
+        int i = ((NumberValue) start).intValue();
+        int n = ((NumberValue) limit).intValue();
+        Command cmds = super.getCommands();
+
+        while (test(cond, i, n)) {
+            if (bodyReads)
+                ctx.write(slot, NumberValue.of(i));
+            cmds.execute(ctx);
+            i += step;
+
+            if (hot(tiers)) {
+                ctx.write(slot, NumberValue.of(i));
+                if (promote(ctx, tiers))
+                    return;
+            }
+        }
+
+        ctx.write(slot, NumberValue.of(i));
+    }
+
+    public static boolean test(BinaryExpr.Op cond, int i, int n) {
+        switch (cond) {
+            case LowerThanOp:
+                return i < n;
+            case LowerEqualOp:
+                return i <= n;
+            case GreaterThanOp:
+                return i > n;
+            default:
+                return i >= n;
+        }
+    }
+
+    private static boolean isComparison(BinaryExpr.Op op) {
+        return op == BinaryExpr.Op.LowerThanOp || op == BinaryExpr.Op.LowerEqualOp
+            || op == BinaryExpr.Op.GreaterThanOp || op == BinaryExpr.Op.GreaterEqualOp;
+    }
+
+    private static boolean isNumber(Expr expr) {
+        return expr instanceof ConstExpr && ((ConstExpr) expr).getValue() instanceof NumberValue;
+    }
+
+    // O comando pode atribuir à variável? Comandos desconhecidos contam
+    // como atribuição.
+    private static boolean assigns(Command cmd, String name) {
+        if (cmd == null || cmd instanceof PrintCommand) {
+            return false;
+        } else if (cmd instanceof BlocksCommand) {
+            for (Command c : ((BlocksCommand) cmd).getCommands())
+                if (assigns(c, name))
+                    return true;
+            return false;
+        } else if (cmd instanceof AssignCommand) {
+            AssignCommand ac = (AssignCommand) cmd;
+            return !(ac.getLhs() instanceof AccessExpr)
+                && (!(ac.getLhs() instanceof Variable) || ((Variable) ac.getLhs()).getName().equals(name));
+        } else if (cmd instanceof DeclarationType1Command) {
+            return declares(((DeclarationType1Command) cmd).getLhs(), name);
+        } else if (cmd instanceof DeclarationType2Command) {
+            return declares(((DeclarationType2Command) cmd).getLhs(), name);
+        } else if (cmd instanceof IfCommand) {
+            IfCommand ic = (IfCommand) cmd;
+            return assigns(ic.getCommandsIf(), name) || assigns(ic.getCommandsElse(), name);
+        } else if (cmd instanceof WhileCommand) {
+            return assigns(((WhileCommand) cmd).getCommands(), name);
+        } else if (cmd instanceof ForCommand) {
+            ForCommand fc = (ForCommand) cmd;
+            for (Command c : fc.getLeftDecl())
+                if (assigns(c, name))
+                    return true;
+            for (Command c : fc.getLeftAssign())
+                if (assigns(c, name))
+                    return true;
+            for (Command c : fc.getRight())
+                if (assigns(c, name))
+                    return true;
+            return assigns(fc.getCommands(), name);
+        }
+
+        return true;
+    }
+
+    private static boolean declares(ArrayList<Variable> vars, String name) {
+        for (Variable v : vars)
+            if (v.getName().equals(name))
+                return true;
+        return false;
+    }
+
+    // O comando pode ler a variável? Na dúvida, sim.
+    private static boolean reads(Command cmd, String name) {
+        if (cmd == null) {
+            return false;
+        } else if (cmd instanceof PrintCommand) {
+            return reads(((PrintCommand) cmd).getExpr(), name);
+        } else if (cmd instanceof BlocksCommand) {
+            for (Command c : ((BlocksCommand) cmd).getCommands())
+                if (reads(c, name))
+                    return true;
+            return false;
+        } else if (cmd instanceof AssignCommand) {
+            AssignCommand ac = (AssignCommand) cmd;
+            if (ac.getOp() != AssignCommand.Op.StdOp || !(ac.getLhs() instanceof Variable))
+                if (reads(ac.getLhs(), name))
+                    return true;
+            return reads(ac.getRhs(), name);
+        } else if (cmd instanceof DeclarationCommand) {
+            for (Expr e : ((DeclarationCommand) cmd).getRhs())
+                if (reads(e, name))
+                    return true;
+            return false;
+        } else if (cmd instanceof IfCommand) {
+            IfCommand ic = (IfCommand) cmd;
+            return reads(ic.getExpr(), name) || reads(ic.getCommandsIf(), name)
+                || reads(ic.getCommandsElse(), name);
+        } else if (cmd instanceof WhileCommand) {
+            WhileCommand wc = (WhileCommand) cmd;
+            return reads(wc.getExpr(), name) || reads(wc.getCommands(), name);
+        } else if (cmd instanceof ForCommand) {
+            ForCommand fc = (ForCommand) cmd;
+            for (Command c : fc.getLeftDecl())
+                if (reads(c, name))
+                    return true;
+            for (Command c : fc.getLeftAssign())
+                if (reads(c, name))
+                    return true;
+            for (Command c : fc.getRight())
+                if (reads(c, name))
+                    return true;
+            return reads(fc.getExpr(), name) || reads(fc.getCommands(), name);
+        }
+
+        return true;
+    }
+
+    private static boolean reads(Expr expr, String name) {
+        if (expr == null || expr instanceof ConstExpr) {
+            return false;
+        } else if (expr instanceof Variable) {
+            return ((Variable) expr).getName().equals(name);
+        } else if (expr instanceof BinaryExpr) {
+            BinaryExpr be = (BinaryExpr) expr;
+            return reads(be.getLeft(), name) || reads(be.getRight(), name);
+        } else if (expr instanceof UnaryExpr) {
+            return reads(((UnaryExpr) expr).getExpr(), name);
+        } else if (expr instanceof CastExpr) {
+            return reads(((CastExpr) expr).getExpr(), name);
+        } else if (expr instanceof AccessExpr) {
+            AccessExpr ae = (AccessExpr) expr;
+            return reads(ae.getBase(), name) || reads(ae.getIndex(), name);
+        } else if (expr instanceof InvariantExpr) {
+            InvariantExpr ie = (InvariantExpr) expr;
+            return reads(ie.getTemp(), name) || reads(ie.getExpr(), name);
+        } else if (expr instanceof ArrayExpr) {
+            for (Expr e : ((ArrayExpr) expr).getItems())
+                if (reads(e, name))
+                    return true;
+            return false;
+        } else if (expr instanceof MapExpr) {
+            for (Expr e : ((MapExpr) expr).getValues())
+                if (reads(e, name))
+                    return true;
+            return false;
+        }
+
+        return true;
+    }
+
+}
@@ -3,6 +3,7 @@ package interpreter.command;
 import java.util.ArrayList;
 
 import interpreter.expr.Expr;
+import interpreter.util.ExecutionContext;
 
 public abstract class DeclarationCommand extends Command {
     
@@ -13,6 +14,10 @@ public abstract class DeclarationCommand extends Command {
         this.rhs = rhs;
     }
 
+    public ArrayList<Expr> getRhs() {
+        return rhs;
+    }
+
     @Override
-    public abstract void execute();
+    public abstract void execute(ExecutionContext ctx);
 }
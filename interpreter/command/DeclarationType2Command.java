@@ -4,6 +4,7 @@ import java.util.ArrayList;
 
 import interpreter.expr.Expr;
 import interpreter.expr.Variable;
+import interpreter.util.ExecutionContext;
 import interpreter.value.Value;
 
 public class DeclarationType2Command extends DeclarationCommand {
@@ -16,15 +17,19 @@ public class DeclarationType2Command extends DeclarationCommand {
         this.lhs = lhs;
     }
 
+    public ArrayList<Variable> getLhs() {
+        return lhs;
+    }
+
     @Override
-    public void execute() {
+    public void execute(ExecutionContext ctx) {
         int rhsSize = rhs.size();
         for (int i = 0; i < lhs.size(); i++) {
             if(i < rhsSize) {
-                Value<?> v = (rhs.get(i) != null ? rhs.get(i).expr() : null);
-                lhs.get(i).setValue(v);
+                Value<?> v = (rhs.get(i) != null ? rhs.get(i).expr(ctx) : null);
+                lhs.get(i).setValue(ctx, v);
             } else {
-                lhs.get(i).setValue(null);
+                lhs.get(i).setValue(ctx, null);
             }
         }
         
@@ -3,9 +3,11 @@ package interpreter.command;
 import java.util.ArrayList;
 
 import interpreter.expr.Expr;
+import interpreter.tier.TierPolicy;
+import interpreter.util.ExecutionContext;
 import interpreter.value.Value;
 
-public class ForCommand extends Command {
+public class ForCommand extends LoopCommand {
 
     private ArrayList<DeclarationCommand> leftDecl;
     private ArrayList<AssignCommand> leftAssign;
@@ -23,24 +25,65 @@ public class ForCommand extends Command {
         this.cmds = cmds;
     }
 
+    public ArrayList<DeclarationCommand> getLeftDecl() {
+        return leftDecl;
+    }
+
+    public ArrayList<AssignCommand> getLeftAssign() {
+        return leftAssign;
+    }
+
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public ArrayList<AssignCommand> getRight() {
+        return right;
+    }
+
+    public Command getCommands() {
+        return cmds;
+    }
+
     @Override
-    public void execute() {
+    public void execute(ExecutionContext ctx) {
+        init(ctx);
+
+        TierPolicy tiers = ctx.tiers();
+        if (compiled() != null && tiers != null)
+            compiled().run(ctx);
+        else
+            loop(ctx, tiers);
+    }
+
+    protected void init(ExecutionContext ctx) {
         int i;
 
         for (i = 0; i < leftDecl.size(); i++)
-            leftDecl.get(i).execute();
+            leftDecl.get(i).execute(ctx);
 
         for (i = 0; i < leftAssign.size(); i++)
-            leftAssign.get(i).execute();
-        
+            leftAssign.get(i).execute(ctx);
+    }
+
+    // Voltas do laço, sem promoção (usado pelos níveis compilados).
+    public void loop(ExecutionContext ctx) {
+        loop(ctx, null);
+    }
+
+    protected void loop(ExecutionContext ctx, TierPolicy tiers) {
+        int i;
 
         if(expr != null) {
             do {
-                Value<?> v = expr.expr();
+                Value<?> v = expr.expr(ctx);
                 if (v != null && v.eval()) {
-                    cmds.execute();
+                    cmds.execute(ctx);
                     for (i = 0; i < right.size(); i++) 
-                        right.get(i).execute();
+                        right.get(i).execute(ctx);
+
+                    if (hot(tiers) && promote(ctx, tiers))
+                        return;
                 }
                 else
                     break;
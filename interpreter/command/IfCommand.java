@@ -1,6 +1,7 @@
 package interpreter.command;
 
 import interpreter.expr.Expr;
+import interpreter.util.ExecutionContext;
 import interpreter.value.Value;
 
 public class IfCommand extends Command {
@@ -24,14 +25,26 @@ public class IfCommand extends Command {
         this.cmdsElse = cmdsElse;
     }
 
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public Command getCommandsIf() {
+        return cmdsIf;
+    }
+
+    public Command getCommandsElse() {
+        return cmdsElse;
+    }
+
     @Override
-    public void execute() {
-        Value<?> v = expr.expr();
+    public void execute(ExecutionContext ctx) {
+        Value<?> v = expr.expr(ctx);
         if (v != null && v.eval())
-            cmdsIf.execute();
+            cmdsIf.execute(ctx);
         else {
             if(cmdsElse != null) {
-                cmdsElse.execute(); 
+                cmdsElse.execute(ctx); 
             }
         }
     }
@@ -0,0 +1,42 @@
+package interpreter.command;
+
+import interpreter.closure.CompiledCommand;
+import interpreter.tier.TierPolicy;
+import interpreter.util.ExecutionContext;
+
+// Contagem de voltas e promoção para um nível compilado, comum ao while
+// e ao for.
+public abstract class LoopCommand extends Command {
+
+    // voltas já dadas (em todas as execuções) e o laço compilado, depois
+    // de promovido
+    private int backEdges;
+    private CompiledCommand compiled;
+
+    protected LoopCommand(int line) {
+        super(line);
+    }
+
+    // Conta uma volta; true quando o laço atinge o limite de promoção.
+    protected boolean hot(TierPolicy tiers) {
+        return tiers != null && ++backEdges >= tiers.threshold();
+    }
+
+    // Compila o restante do laço e o executa; false se não deu para
+    // compilar (o laço segue na árvore e não tenta de novo).
+    protected boolean promote(ExecutionContext ctx, TierPolicy tiers) {
+        compiled = tiers.promote(this, backEdges, ctx);
+        if (compiled == null) {
+            backEdges = Integer.MIN_VALUE;
+            return false;
+        }
+
+        compiled.run(ctx);
+        return true;
+    }
+
+    protected CompiledCommand compiled() {
+        return compiled;
+    }
+
+}
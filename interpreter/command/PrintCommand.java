@@ -1,6 +1,7 @@
 package interpreter.command;
 
 import interpreter.expr.Expr;
+import interpreter.util.ExecutionContext;
 import interpreter.value.Value;
 
 public class PrintCommand extends Command {
@@ -15,13 +16,21 @@ public class PrintCommand extends Command {
         this.expr = expr;
     }
     
+    public boolean isNewline() {
+        return newline;
+    }
+
+    public Expr getExpr() {
+        return expr;
+    }
+
     @Override
-    public void execute() {
-        Value<?> v = expr.expr();
+    public void execute(ExecutionContext ctx) {
+        Value<?> v = expr.expr(ctx);
 
         String str = v == null ? "null" : v.toString();
-        System.out.print(str);
+        ctx.out().print(str);
         if (newline)
-            System.out.println();
+            ctx.out().println();
     }
 }
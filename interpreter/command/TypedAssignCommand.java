@@ -0,0 +1,59 @@
+package interpreter.command;
+
+import interpreter.expr.AccessExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.Location;
+import interpreter.expr.SetExpr;
+import interpreter.expr.Specialization;
+import interpreter.util.ExecutionContext;
+
+// Atribuição composta (+=, -=, ...) com os tipos dos dois lados conhecidos
+// antes da execução; como TypedBinaryExpr, usa a especialização sem
+// testar os operandos.
+public class TypedAssignCommand extends AssignCommand {
+
+    private Class<?> ltype;
+    private Class<?> rtype;
+    private Specialization specialization;
+
+    private TypedAssignCommand(int line, SetExpr lhs, Op op, Expr rhs, Class<?> ltype, Class<?> rtype,
+            Specialization specialization) {
+        super(line, lhs, op, rhs);
+
+        this.ltype = ltype;
+        this.rtype = rtype;
+        this.specialization = specialization;
+    }
+
+    public static AssignCommand create(int line, SetExpr lhs, Op op, Expr rhs, Class<?> ltype, Class<?> rtype) {
+        Specialization s = op == Op.StdOp ? null : Specialization.forAssign(op, ltype, rtype);
+        if (s == null)
+            return new AssignCommand(line, lhs, op, rhs);
+
+        return new TypedAssignCommand(line, lhs, op, rhs, ltype, rtype, s);
+    }
+
+    public Class<?> getLeftType() {
+        return ltype;
+    }
+
+    public Class<?> getRightType() {
+        return rtype;
+    }
+
+    public Specialization getSpecialization() {
+        return specialization;
+    }
+
+    @Override
+    public void execute(ExecutionContext ctx) {
+        SetExpr lhs = super.getLhs();
+        if (lhs instanceof AccessExpr) {
+            Location loc = ((AccessExpr) lhs).locate(ctx);
+            loc.set(specialization.apply(loc.get(), super.getRhs().expr(ctx)));
+        } else {
+            lhs.setValue(ctx, specialization.apply(lhs.expr(ctx), super.getRhs().expr(ctx)));
+        }
+    }
+
+}
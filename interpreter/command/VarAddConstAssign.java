@@ -0,0 +1,49 @@
+package interpreter.command;
+
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.SetExpr;
+import interpreter.expr.Variable;
+import interpreter.util.ExecutionContext;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Superinstrução para var += const e var -= const: lê o slot, soma o
+// inteiro e grava, sem avaliar a constante nem passar pela
+// especialização. Texto e erros seguem pelo AssignCommand comum.
+public class VarAddConstAssign extends AssignCommand {
+
+    private Variable var;
+    private int delta;
+
+    private VarAddConstAssign(int line, Variable var, Op op, ConstExpr rhs) {
+        super(line, var, op, rhs);
+
+        this.var = var;
+        this.delta = ((NumberValue) rhs.getValue()).intValue();
+        if (op == Op.SubOp)
+            this.delta = -this.delta;
+    }
+
+    // Nó fundido, ou null se a atribuição não tem a forma esperada.
+    public static AssignCommand create(int line, SetExpr lhs, Op op, Expr rhs) {
+        if (lhs instanceof Variable
+                && (op == Op.AddOp || op == Op.SubOp)
+                && rhs instanceof ConstExpr
+                && ((ConstExpr) rhs).getValue() instanceof NumberValue)
+            return new VarAddConstAssign(line, (Variable) lhs, op, (ConstExpr) rhs);
+
+        return null;
+    }
+
+    @Override
+    public void execute(ExecutionContext ctx) {
+        int slot = var.getSlot();
+        Value<?> v = ctx.read(slot);
+        if (v instanceof NumberValue)
+            ctx.write(slot, NumberValue.of(((NumberValue) v).intValue() + delta));
+        else
+            super.execute(ctx);
+    }
+
+}
@@ -0,0 +1,50 @@
+package interpreter.command;
+
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.SetExpr;
+import interpreter.expr.Variable;
+import interpreter.util.ExecutionContext;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Superinstrução para var = var + var: lê os dois slots, soma e grava num
+// só nó. Fora de dois números usa o + comum (concatenação, erros).
+public class VarAddVarAssign extends AssignCommand {
+
+    private Variable target;
+    private Variable left;
+    private Variable right;
+
+    private VarAddVarAssign(int line, Variable target, BinaryExpr rhs) {
+        super(line, target, Op.StdOp, rhs);
+
+        this.target = target;
+        this.left = (Variable) rhs.getLeft();
+        this.right = (Variable) rhs.getRight();
+    }
+
+    // Nó fundido, ou null se a atribuição não tem a forma esperada.
+    public static AssignCommand create(int line, SetExpr lhs, Op op, Expr rhs) {
+        if (lhs instanceof Variable && op == Op.StdOp && rhs instanceof BinaryExpr) {
+            BinaryExpr be = (BinaryExpr) rhs;
+            if (be.getOp() == BinaryExpr.Op.AddOp
+                    && be.getLeft() instanceof Variable && be.getRight() instanceof Variable)
+                return new VarAddVarAssign(line, (Variable) lhs, be);
+        }
+
+        return null;
+    }
+
+    @Override
+    public void execute(ExecutionContext ctx) {
+        Value<?> lvalue = ctx.read(left.getSlot());
+        Value<?> rvalue = ctx.read(right.getSlot());
+        if (lvalue instanceof NumberValue && rvalue instanceof NumberValue)
+            ctx.write(target.getSlot(),
+                NumberValue.of(((NumberValue) lvalue).intValue() + ((NumberValue) rvalue).intValue()));
+        else
+            ctx.write(target.getSlot(), BinaryExpr.addOp(super.getRhs().getLine(), lvalue, rvalue));
+    }
+
+}
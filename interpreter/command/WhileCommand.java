@@ -1,9 +1,11 @@
 package interpreter.command;
 
 import interpreter.expr.Expr;
+import interpreter.tier.TierPolicy;
+import interpreter.util.ExecutionContext;
 import interpreter.value.Value;
 
-public class WhileCommand extends Command {
+public class WhileCommand extends LoopCommand {
 
     private Expr expr;
     private Command cmds;
@@ -15,14 +17,32 @@ public class WhileCommand extends Command {
         this.cmds = cmds;
     }
 
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public Command getCommands() {
+        return cmds;
+    }
+
     @Override
-    public void execute() {
+    public void execute(ExecutionContext ctx) {
+        TierPolicy tiers = ctx.tiers();
+        if (compiled() != null && tiers != null) {
+            compiled().run(ctx);
+            return;
+        }
+
         do {
-            Value<?> v = expr.expr();
+            Value<?> v = expr.expr(ctx);
             if (v != null && v.eval())
-                cmds.execute();
+                cmds.execute(ctx);
             else
                 break;
+
+            // o laço volta a testar a condição já no nível compilado
+            if (hot(tiers) && promote(ctx, tiers))
+                return;
         } while (true);
 
     }
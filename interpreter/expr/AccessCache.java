@@ -0,0 +1,112 @@
+package interpreter.expr;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import interpreter.value.MapValue;
+import interpreter.value.Shape;
+import interpreter.value.Value;
+
+// Cache de um ponto de acesso a mapas: até SIZE pares (shape, chave) com a
+// posição da chave no shape. Com uma entrada o ponto é monomórfico; com
+// mais, polimórfico. Quando enche, o ponto vira megamórfico e passa a
+// procurar a chave no shape direto.
+// Com -Dmgi.ic.stats=true cada ponto conta acertos e falhas, e report()
+// lista os pontos.
+public class AccessCache {
+
+    public static final boolean STATS = Boolean.getBoolean("mgi.ic.stats");
+    private static final List<AccessCache> SITES = Collections.synchronizedList(new ArrayList<AccessCache>());
+    private static final int SIZE = 4;
+
+    private int line;
+    private Shape[] shapes;
+    private String[] keys;
+    private int[] slots;
+    private int size;
+    private boolean megamorphic;
+    private long hits;
+    private long misses;
+
+    AccessCache(int line) {
+        this.line = line;
+        this.shapes = new Shape[SIZE];
+        this.keys = new String[SIZE];
+        this.slots = new int[SIZE];
+
+        if (STATS)
+            SITES.add(this);
+    }
+
+    // Valor da chave num mapa com shape s.
+    Value<?> get(MapValue mv, Shape s, String key) {
+        int slot = slot(s, key);
+        return slot < 0 ? null : mv.slot(slot);
+    }
+
+    // Posição da chave no shape s, ou -1 se ele não a tem.
+    int slot(Shape s, String key) {
+        if (!megamorphic) {
+            for (int i = 0; i < size; i++) {
+                if (shapes[i] == s && (keys[i] == key || keys[i].equals(key))) {
+                    if (STATS)
+                        hits++;
+                    return slots[i];
+                }
+            }
+        }
+
+        if (STATS)
+            misses++;
+
+        int slot = s.indexOf(key);
+        if (slot < 0)
+            return -1;
+
+        if (size < SIZE) {
+            shapes[size] = s;
+            keys[size] = key;
+            slots[size] = slot;
+            size++;
+        } else {
+            megamorphic = true;
+        }
+
+        return slot;
+    }
+
+    // Acessos que não usam as entradas: arranjo com índice numérico conta
+    // como acerto; mapa sem shape e os demais casos, como falha.
+    void hit() {
+        if (STATS)
+            hits++;
+    }
+
+    void miss() {
+        if (STATS)
+            misses++;
+    }
+
+    private String state() {
+        if (megamorphic)
+            return "megamorphic";
+        else if (size == 0)
+            return "no maps";
+        else if (size == 1)
+            return "monomorphic";
+        else
+            return "polymorphic(" + size + ")";
+    }
+
+    public static void report(PrintStream out) {
+        synchronized (SITES) {
+            // nós trocados pelo otimizador ficam sem uso
+            for (AccessCache c : SITES)
+                if (c.hits + c.misses > 0)
+                    out.printf("[ic] line %d: %d hits, %d misses, %s\n", c.line, c.hits, c.misses, c.state());
+        }
+    }
+
+}
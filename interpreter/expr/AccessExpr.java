@@ -1,12 +1,11 @@
 package interpreter.expr;
 
-import java.util.List;
-import java.util.Map;
-
+import interpreter.util.ExecutionContext;
 import interpreter.util.Utils;
 import interpreter.value.ArrayValue;
 import interpreter.value.MapValue;
 import interpreter.value.NumberValue;
+import interpreter.value.Shape;
 import interpreter.value.TextValue;
 import interpreter.value.Value;
 
@@ -15,60 +14,162 @@ public class AccessExpr extends SetExpr {
     private SetExpr base;
     private Expr index;
 
+    // Cache do ponto e o último tipo de base visto aqui (a ordem dos
+    // testes em get segue esse tipo).
+    AccessCache cache;
+    private boolean maps;
+
     public AccessExpr(int line, SetExpr base, Expr index) {
         super(line);
 
         this.base = base;
         this.index = index;
+        this.cache = new AccessCache(line);
+    }
+
+    // Acesso a partir do parser ou do otimizador: escolhe o nó
+    // especializado pela forma do índice.
+    public static AccessExpr create(int line, SetExpr base, Expr index) {
+        if (index instanceof ConstExpr && ((ConstExpr) index).getValue() instanceof TextValue)
+            return new PropertyAccessExpr(line, base, (ConstExpr) index);
+
+        return ArrayIndexByVar.create(line, base, index);
+    }
+
+    public SetExpr getBase() {
+        return base;
+    }
+
+    public Expr getIndex() {
+        return index;
     }
 
     @Override
-    public Value<?> expr() {
-        Value<?> bvalue = base.expr();
+    public Value<?> expr(ExecutionContext ctx) {
+        Value<?> bvalue = base.expr(ctx);
+        Value<?> ivalue = index.expr(ctx);
+
+        return get(bvalue, ivalue);
+    }
+
+    // Acesso pelo cache do ponto; usado também pelos compiladores. Fora
+    // de arranjo por número e mapa por texto, vai para access().
+    public Value<?> get(Value<?> bvalue, Value<?> ivalue) {
+        if (maps && bvalue instanceof MapValue && ivalue instanceof TextValue)
+            return map((MapValue) bvalue, ((TextValue) ivalue).value());
+
+        if (bvalue instanceof ArrayValue && ivalue instanceof NumberValue) {
+            if (maps)
+                maps = false;
+
+            ArrayValue av = (ArrayValue) bvalue;
+            int idx = ((NumberValue) ivalue).intValue();
+            cache.hit();
+            return idx >= 0 && idx < av.size() ? av.get(idx) : null;
+        }
+
+        if (bvalue instanceof MapValue && ivalue instanceof TextValue) {
+            maps = true;
+            return map((MapValue) bvalue, ((TextValue) ivalue).value());
+        }
+
+        cache.miss();
+        return access(super.getLine(), bvalue, ivalue);
+    }
+
+    // Elemento como int, para quem vai usá-lo em aritmética int (o
+    // compilador JVM): de um arranjo em int[] lê sem criar o NumberValue.
+    // Um elemento que não é número aborta na linha da operação.
+    public int getInt(Value<?> bvalue, Value<?> ivalue, int line) {
+        if (bvalue instanceof ArrayValue && ivalue instanceof NumberValue) {
+            ArrayValue av = (ArrayValue) bvalue;
+            int idx = ((NumberValue) ivalue).intValue();
+            if (av.isInts() && idx >= 0 && idx < av.size()) {
+                if (maps)
+                    maps = false;
+
+                cache.hit();
+                return av.getInt(idx);
+            }
+        }
+
+        Value<?> v = get(bvalue, ivalue);
+        if (!(v instanceof NumberValue))
+            Utils.abort(line);
+
+        return ((NumberValue) v).intValue();
+    }
+
+    Value<?> map(MapValue mv, String key) {
+        Shape s = mv.shape();
+        if (s != null)
+            return cache.get(mv, s, key);
+
+        cache.miss();
+        return mv.get(key);
+    }
+
+    public static Value<?> access(int line, Value<?> bvalue, Value<?> ivalue) {
         if (bvalue instanceof ArrayValue) {
             ArrayValue av = (ArrayValue) bvalue;
 
-            Value<?> ivalue = index.expr();
             if (ivalue instanceof NumberValue) {
                 NumberValue iv = (NumberValue) ivalue;
+                int idx = iv.intValue();
 
-                List<Value<?>> list = av.value();
-                int idx = iv.value();
-
-                if (idx >= 0 && idx < list.size())
-                    return list.get(idx);
+                // lê direto do armazenamento do arranjo, sem a visão de lista
+                if (idx >= 0 && idx < av.size())
+                    return av.get(idx);
                 else
                     return null;
             } else {
-                Utils.abort(super.getLine());
+                Utils.abort(line);
             }
         } else if (bvalue instanceof MapValue) {
             MapValue mv = (MapValue) bvalue;
 
-            Value<?> ivalue = index.expr();
             if (ivalue instanceof TextValue) {
                 TextValue sv = (TextValue) ivalue;
-
-                Map<String, Value<?>> map = mv.value();
-                String idx = sv.value();
-
-                if (map.containsKey(idx)) {
-                    return map.get(idx);
-                } else {
-                    return null;
-                }
+                return mv.get(sv.value());
             } else {
-                Utils.abort(super.getLine());
+                Utils.abort(line);
             }
         } else {
-            Utils.abort(super.getLine());
+            Utils.abort(line);
         }
 
         return null;
     }
 
+    // Resolve o elemento acessado: a base e o índice são avaliados uma vez
+    // só, e a atribuição composta lê e escreve pelo mesmo Location.
+    public Location locate(ExecutionContext ctx) {
+        Value<?> bvalue = base.expr(ctx);
+        Value<?> ivalue = index.expr(ctx);
+
+        return locate(bvalue, ivalue);
+    }
+
+    // Também usado pelos compiladores, com a base e o índice já avaliados.
+    public Location locate(Value<?> bvalue, Value<?> ivalue) {
+        if (bvalue instanceof ArrayValue && ivalue instanceof NumberValue) {
+            int idx = ((NumberValue) ivalue).intValue();
+            if (idx >= 0)
+                return new Location((ArrayValue) bvalue, idx);
+        } else if (bvalue instanceof MapValue && ivalue instanceof TextValue) {
+            MapValue mv = (MapValue) bvalue;
+            String key = ((TextValue) ivalue).value();
+            Shape s = mv.shape();
+            return new Location(mv, s != null ? cache.slot(s, key) : -1, key);
+        }
+
+        Utils.abort(super.getLine());
+        return null;
+    }
+
     @Override
-    public void setValue(Value<?> value) {
-        System.out.println("Fazer a atribuição do acesso da expressão");
+    public void setValue(ExecutionContext ctx, Value<?> value) {
+        locate(ctx).set(value);
     }
-}
\ No newline at end of file
+
+}
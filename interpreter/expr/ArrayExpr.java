@@ -0,0 +1,33 @@
+package interpreter.expr;
+
+import java.util.List;
+
+import interpreter.util.ExecutionContext;
+import interpreter.value.ArrayValue;
+import interpreter.value.Value;
+
+// Literal de arranjo: [e1, e2, ...]. Cada avaliação cria um arranjo novo.
+public class ArrayExpr extends Expr {
+
+    private List<Expr> items;
+
+    public ArrayExpr(int line, List<Expr> items) {
+        super(line);
+
+        this.items = items;
+    }
+
+    public List<Expr> getItems() {
+        return items;
+    }
+
+    @Override
+    public Value<?> expr(ExecutionContext ctx) {
+        Value<?>[] values = new Value<?>[items.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = items.get(i).expr(ctx);
+
+        return new ArrayValue(values);
+    }
+
+}
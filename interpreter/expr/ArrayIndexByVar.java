@@ -0,0 +1,37 @@
+package interpreter.expr;
+
+import interpreter.util.ExecutionContext;
+import interpreter.value.Value;
+
+// Superinstrução para a[i] com base e índice em variáveis: lê os dois
+// slots direto, sem avaliar os filhos, e segue pelo cache do ponto.
+public class ArrayIndexByVar extends AccessExpr {
+
+    private Variable array;
+    private Variable index;
+
+    private ArrayIndexByVar(int line, Variable array, Variable index) {
+        super(line, array, index);
+
+        this.array = array;
+        this.index = index;
+    }
+
+    public static AccessExpr create(int line, SetExpr base, Expr index) {
+        if (base instanceof Variable && index instanceof Variable)
+            return new ArrayIndexByVar(line, (Variable) base, (Variable) index);
+
+        return new AccessExpr(line, base, index);
+    }
+
+    @Override
+    public Value<?> expr(ExecutionContext ctx) {
+        return get(ctx.read(array.getSlot()), ctx.read(index.getSlot()));
+    }
+
+    @Override
+    public Location locate(ExecutionContext ctx) {
+        return locate(ctx.read(array.getSlot()), ctx.read(index.getSlot()));
+    }
+
+}
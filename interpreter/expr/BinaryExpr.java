@@ -1,7 +1,10 @@
 package interpreter.expr;
 
+import interpreter.util.ExecutionContext;
 import interpreter.util.Utils;
+import interpreter.value.ArrayValue;
 import interpreter.value.BooleanValue;
+import interpreter.value.MapValue;
 import interpreter.value.NumberValue;
 import interpreter.value.TextValue;
 import interpreter.value.Value;
@@ -31,6 +34,11 @@ public class BinaryExpr extends Expr {
     private Op op;
     private Expr right;
 
+    // Especialização escolhida na primeira execução; depois de uma
+    // desotimização o nó fica no caminho genérico.
+    private Specialization specialization;
+    private boolean generic;
+
     public BinaryExpr(int line, Expr left, Op op, Expr right) {
         super(line);
 
@@ -39,111 +47,152 @@ public class BinaryExpr extends Expr {
         this.right = right;
     }
 
+    public Expr getLeft() {
+        return left;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public Expr getRight() {
+        return right;
+    }
+
     @Override
-    public Value<?> expr() {
+    public Value<?> expr(ExecutionContext ctx) {
+        // && e || só avaliam o lado direito quando ele decide o resultado.
+        if (op == Op.AndOp) {
+            if (!truth(super.getLine(), left.expr(ctx)))
+                return BooleanValue.FALSE;
+
+            return BooleanValue.of(truth(super.getLine(), right.expr(ctx)));
+        } else if (op == Op.OrOp) {
+            if (truth(super.getLine(), left.expr(ctx)))
+                return BooleanValue.TRUE;
+
+            return BooleanValue.of(truth(super.getLine(), right.expr(ctx)));
+        }
+
+        Value<?> lvalue = left.expr(ctx);
+        Value<?> rvalue = right.expr(ctx);
+
+        Specialization s = specialization;
+        if (s != null) {
+            if (s.accepts(lvalue, rvalue))
+                return s.apply(lvalue, rvalue);
+
+            specialization = null;
+            generic = true;
+        } else if (!generic) {
+            s = Specialization.forBinary(op, lvalue, rvalue);
+            if (s != null) {
+                specialization = s;
+                return s.apply(lvalue, rvalue);
+            }
+
+            generic = true;
+        }
+
+        return evaluate(super.getLine(), op, lvalue, rvalue);
+    }
+
+    public Specialization getSpecialization() {
+        return specialization;
+    }
+
+    public static Value<?> evaluate(int line, Op op, Value<?> lvalue, Value<?> rvalue) {
         Value<?> v = null;
         switch (op) {
             case AndOp:
-                v = andOp();
+                v = andOp(line, lvalue, rvalue);
                 break;
             case OrOp:
-                v = orOp();
+                v = orOp(line, lvalue, rvalue);
                 break;
             case EqualOp:
-                v = equalOp();
+                v = equalOp(line, lvalue, rvalue);
                 break;
             case NotEqualOp:
-                v = notEqualOp();
+                v = notEqualOp(line, lvalue, rvalue);
                 break;
             case LowerThanOp:
-                v = lowerThanOp();
+                v = lowerThanOp(line, lvalue, rvalue);
                 break;
             case LowerEqualOp:
-                v = lowerEqualOp();
+                v = lowerEqualOp(line, lvalue, rvalue);
                 break;
             case GreaterThanOp:
-                v = greaterThanOp();
+                v = greaterThanOp(line, lvalue, rvalue);
                 break;
             case GreaterEqualOp:
-                v = greaterEqualOp();
+                v = greaterEqualOp(line, lvalue, rvalue);
                 break;
             case ContainsOp:
-                v = containsOp();
+                v = containsOp(line, lvalue, rvalue);
                 break;
             case NotContainsOp:
-                v = notContainsOp();
+                v = notContainsOp(line, lvalue, rvalue);
                 break;
             case AddOp:
-                v = addOp();
+                v = addOp(line, lvalue, rvalue);
                 break;
             case SubOp:
-                v = subOp();
+                v = subOp(line, lvalue, rvalue);
                 break;
             case MulOp:
-                v = mulOp();
+                v = mulOp(line, lvalue, rvalue);
                 break;
             case DivOp:
-                v = divOp();
+                v = divOp(line, lvalue, rvalue);
                 break;
             case ModOp:
-                v = modOp();
+                v = modOp(line, lvalue, rvalue);
                 break;
             case PowerOp:
-                v = powerOp();
+                v = powerOp(line, lvalue, rvalue);
                 break;
             default:
-                Utils.abort(super.getLine());
+                Utils.abort(line);
         }
 
         return v;
     }
 
-    private Value<?> andOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
+    // Valor lógico de um operando de && e ||: números e booleanos.
+    public static boolean truth(int line, Value<?> value) {
+        if (value instanceof BooleanValue)
+            return ((BooleanValue) value).booleanValue();
 
-        if (!(lvalue instanceof NumberValue) ||
-            !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+        if (!(value instanceof NumberValue))
+            Utils.abort(line);
 
-        NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        return ((NumberValue) value).intValue() != 0;
+    }
 
-        NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+    public static Value<?> andOp(int line, Value<?> lvalue, Value<?> rvalue) {
+        boolean lv = truth(line, lvalue);
+        boolean rv = truth(line, rvalue);
 
-        NumberValue res = lv != 0 && rv != 0 ? new NumberValue(1) : new NumberValue(0);
+        BooleanValue res = BooleanValue.of(lv && rv);
 
         return res;
     }
 
-    private Value<?> orOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
+    public static Value<?> orOp(int line, Value<?> lvalue, Value<?> rvalue) {
+        boolean lv = truth(line, lvalue);
+        boolean rv = truth(line, rvalue);
 
-        if (!(lvalue instanceof NumberValue) ||
-            !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
-
-        NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
-
-        NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
-
-        NumberValue res = lv != 0 || rv != 0 ? new NumberValue(1) : new NumberValue(0);
+        BooleanValue res = BooleanValue.of(lv || rv);
 
         return res;
     }
 
-    private Value<?> equalOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
-
-        NumberValue res = new NumberValue(0);
+    public static Value<?> equalOp(int line, Value<?> lvalue, Value<?> rvalue) {
+        BooleanValue res = BooleanValue.FALSE;
 
         if(lvalue == null && rvalue == null) {
-            res = new NumberValue(1);
+            res = BooleanValue.TRUE;
         }
         else if((lvalue instanceof TextValue) && (rvalue instanceof TextValue)) {
             TextValue nvl = (TextValue) lvalue;
@@ -153,40 +202,37 @@ public class BinaryExpr extends Expr {
             String rv = nvr.value();
 
             if(lv.equals(rv))
-                res = new NumberValue(1);
+                res = BooleanValue.TRUE;
             
         } else if((lvalue instanceof NumberValue) && (rvalue instanceof NumberValue)) {
             NumberValue nvl = (NumberValue) lvalue;
-            int lv = nvl.value();
+            int lv = nvl.intValue();
 
             NumberValue nvr = (NumberValue) rvalue;
-            int rv = nvr.value();
+            int rv = nvr.intValue();
 
             if(lv == rv)
-                res =  new NumberValue(1);
+                res = BooleanValue.TRUE;
 
         } else if((lvalue instanceof BooleanValue) && (rvalue instanceof BooleanValue)) {
             BooleanValue nvl = (BooleanValue) lvalue;
-            boolean lv = nvl.value();
+            boolean lv = nvl.booleanValue();
 
             BooleanValue nvr = (BooleanValue) rvalue;
-            boolean rv = nvr.value();
+            boolean rv = nvr.booleanValue();
 
             if(lv == rv)
-                res =  new NumberValue(1);
+                res = BooleanValue.TRUE;
         }
 
         return res;
     }
 
-    private Value<?> notEqualOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
-
-        NumberValue res = new NumberValue(1);
+    public static Value<?> notEqualOp(int line, Value<?> lvalue, Value<?> rvalue) {
+        BooleanValue res = BooleanValue.TRUE;
 
         if(lvalue == null && rvalue == null) {
-            res = new NumberValue(0);
+            res = BooleanValue.FALSE;
         }
         else if((lvalue instanceof TextValue) && (rvalue instanceof TextValue)) {
             TextValue nvl = (TextValue) lvalue;
@@ -196,273 +242,242 @@ public class BinaryExpr extends Expr {
             String rv = nvr.value();
 
             if(lv.equals(rv))
-                res = new NumberValue(0);
+                res = BooleanValue.FALSE;
             
         } else if((lvalue instanceof NumberValue) && (rvalue instanceof NumberValue)) {
             NumberValue nvl = (NumberValue) lvalue;
-            int lv = nvl.value();
+            int lv = nvl.intValue();
 
             NumberValue nvr = (NumberValue) rvalue;
-            int rv = nvr.value();
+            int rv = nvr.intValue();
 
             if(lv == rv)
-                res =  new NumberValue(0);
+                res = BooleanValue.FALSE;
 
         } else if((lvalue instanceof BooleanValue) && (rvalue instanceof BooleanValue)) {
             BooleanValue nvl = (BooleanValue) lvalue;
-            boolean lv = nvl.value();
+            boolean lv = nvl.booleanValue();
 
             BooleanValue nvr = (BooleanValue) rvalue;
-            boolean rv = nvr.value();
+            boolean rv = nvr.booleanValue();
 
             if(lv == rv)
-                res =  new NumberValue(0);
+                res = BooleanValue.FALSE;
         }
 
         return res;
     }
 
-    private Value<?> lowerThanOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
-
+    public static Value<?> lowerThanOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = lv < rv ? new NumberValue(1) : new NumberValue(0);
+        BooleanValue res = BooleanValue.of(lv < rv);
 
         return res;
     }
 
-    private Value<?> lowerEqualOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
-
+    public static Value<?> lowerEqualOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = lv <= rv ? new NumberValue(1) : new NumberValue(0);
+        BooleanValue res = BooleanValue.of(lv <= rv);
 
         return res;
     }
 
-    private Value<?> greaterThanOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
-
+    public static Value<?> greaterThanOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = lv > rv ? new NumberValue(1) : new NumberValue(0);
+        BooleanValue res = BooleanValue.of(lv > rv);
 
         return res;
     }
 
-    private Value<?> greaterEqualOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
-
+    public static Value<?> greaterEqualOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = lv >= rv ? new NumberValue(1) : new NumberValue(0);
+        BooleanValue res = BooleanValue.of(lv >= rv);
 
         return res;
     }
 
-    private Value<?> containsOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
+    public static Value<?> containsOp(int line, Value<?> lvalue, Value<?> rvalue) {
+        if (rvalue instanceof ArrayValue)
+            return BooleanValue.of(((ArrayValue) rvalue).contains(lvalue));
+        if (rvalue instanceof MapValue)
+            return BooleanValue.of(lvalue instanceof TextValue
+                && ((MapValue) rvalue).has(((TextValue) lvalue).value()));
 
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = lv == rv ? new NumberValue(1) : new NumberValue(0);
+        BooleanValue res = BooleanValue.of(lv == rv);
 
         return res;
     }
 
-    private Value<?> notContainsOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
+    public static Value<?> notContainsOp(int line, Value<?> lvalue, Value<?> rvalue) {
+        if (rvalue instanceof ArrayValue || rvalue instanceof MapValue)
+            return BooleanValue.of(!((BooleanValue) containsOp(line, lvalue, rvalue)).booleanValue());
 
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = lv != rv ? new NumberValue(1) : new NumberValue(0);
+        BooleanValue res = BooleanValue.of(lv != rv);
 
         return res;
     }
 
-    private Value<?> addOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
-
+    public static Value<?> addOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if((lvalue instanceof TextValue) && (rvalue instanceof TextValue)) {
             TextValue nvl = (TextValue) lvalue;
-            String lv = nvl.value();
-
             TextValue nvr = (TextValue) rvalue;
-            String rv = nvr.value();
 
-            TextValue res = new TextValue(lv + rv);
+            TextValue res = nvl.concat(nvr);
             return res;
         }
         else if((lvalue instanceof TextValue) && (rvalue instanceof NumberValue)) {
             TextValue nvl = (TextValue) lvalue;
-            String lv = nvl.value();
 
             NumberValue nvr = (NumberValue) rvalue;
-            int rv = nvr.value();
+            int rv = nvr.intValue();
 
-            TextValue res = new TextValue(lv + rv);
+            TextValue res = nvl.concat(rv);
             return res;
         }
         else if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue)) {
-            Utils.abort(super.getLine());
+            Utils.abort(line);
             return null;
         } else {
             NumberValue nvl = (NumberValue) lvalue;
-            int lv = nvl.value();
+            int lv = nvl.intValue();
 
             NumberValue nvr = (NumberValue) rvalue;
-            int rv = nvr.value();
+            int rv = nvr.intValue();
 
-            NumberValue res = new NumberValue(lv + rv);
+            NumberValue res = NumberValue.of(lv + rv);
             return res;
         }
     }
 
-    private Value<?> subOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
-
+    public static Value<?> subOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = new NumberValue(lv - rv);
+        NumberValue res = NumberValue.of(lv - rv);
         return res;
     }
 
-    private Value<?> mulOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
-
+    public static Value<?> mulOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = new NumberValue(lv * rv);
+        NumberValue res = NumberValue.of(lv * rv);
         return res;
     }
 
-    private Value<?> divOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
-
+    public static Value<?> divOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = new NumberValue(lv / rv);
+        NumberValue res = NumberValue.of(lv / rv);
         return res;
     }
 
-    private Value<?> modOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
-
+    public static Value<?> modOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = new NumberValue(lv % rv);
+        NumberValue res = NumberValue.of(lv % rv);
         return res;
     }
 
-    private Value<?> powerOp() {
-        Value<?> lvalue = left.expr();
-        Value<?> rvalue = right.expr();
-
+    public static Value<?> powerOp(int line, Value<?> lvalue, Value<?> rvalue) {
         if (!(lvalue instanceof NumberValue) ||
             !(rvalue instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nvl = (NumberValue) lvalue;
-        int lv = nvl.value();
+        int lv = nvl.intValue();
 
         NumberValue nvr = (NumberValue) rvalue;
-        int rv = nvr.value();
+        int rv = nvr.intValue();
 
-        NumberValue res = new NumberValue((int) Math.pow(lv, rv));
+        NumberValue res = NumberValue.of((int) Math.pow(lv, rv));
         return res;
     }
     
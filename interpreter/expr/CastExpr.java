@@ -1,5 +1,6 @@
 package interpreter.expr;
 
+import interpreter.util.ExecutionContext;
 import interpreter.util.Utils;
 import interpreter.value.BooleanValue;
 import interpreter.value.NumberValue;
@@ -24,60 +25,72 @@ public class CastExpr extends Expr {
         this.op = op;
     }
 
+    public Expr getExpr() {
+        return left;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
     @Override
-    public Value<?> expr() {
+    public Value<?> expr(ExecutionContext ctx) {
+        Value<?> lvalue = left.expr(ctx);
+
+        return evaluate(super.getLine(), op, lvalue);
+    }
+
+    public static Value<?> evaluate(int line, Op op, Value<?> lvalue) {
         Value<?> v = null;
         switch (op) {
             case toBoolean:
-                v = toBoolean();
+                v = toBoolean(lvalue);
                 break;
             case toInteger:
-                v = toInteger();
+                v = toInteger(lvalue);
                 break;
             case toStr:
-                v = toStr();
+                v = toStr(lvalue);
                 break;
             default:
-                Utils.abort(super.getLine());
+                Utils.abort(line);
         }
 
         return v;
     }
 
 
-    private Value<?> toBoolean() {
-        Value<?> lvalue = left.expr();
+    private static Value<?> toBoolean(Value<?> lvalue) {
 
-        BooleanValue res = new BooleanValue(false);
+        BooleanValue res = BooleanValue.FALSE;
 
         if(lvalue == null) {
-            res = new BooleanValue(false);
+            res = BooleanValue.FALSE;
         } else if((lvalue instanceof NumberValue) && ((int) lvalue.value() == 0)) {
-            res = new BooleanValue(false);
+            res = BooleanValue.FALSE;
         } else if((lvalue instanceof BooleanValue) && ((boolean) lvalue.value() == false)) {
-            res = new BooleanValue(false);
-        } else if((lvalue instanceof TextValue) && (String)lvalue.value() == "") {
-            res = new BooleanValue(false);
+            res = BooleanValue.FALSE;
+        } else if((lvalue instanceof TextValue) && ((String) lvalue.value()).isEmpty()) {
+            res = BooleanValue.FALSE;
         } else {
-            res = new BooleanValue(true);
+            res = BooleanValue.TRUE;
         }
 
         return res;
     }
 
-    private Value<?> toInteger() {
-        Value<?> lvalue = left.expr();
+    private static Value<?> toInteger(Value<?> lvalue) {
 
-        NumberValue res = new NumberValue(0);
+        NumberValue res = NumberValue.ZERO;
 
         if(lvalue == null) {
-            res = new NumberValue(0);
+            res = NumberValue.ZERO;
         } else if((lvalue instanceof NumberValue)) {
             res = (NumberValue)lvalue;
         } else if((lvalue instanceof BooleanValue) && ((boolean) lvalue.value() == false)) {
-            res = new NumberValue(0);
+            res = NumberValue.ZERO;
         } else if((lvalue instanceof BooleanValue) && ((boolean) lvalue.value() == true)) {
-            res = new NumberValue(1);
+            res = NumberValue.ONE;
         } else if((lvalue instanceof TextValue)) {
             int aux;
             try {
@@ -86,17 +99,16 @@ public class CastExpr extends Expr {
              catch (NumberFormatException e) {
                 aux = 0;
              }
-            res = new NumberValue(aux);
+            res = NumberValue.of(aux);
         } else {
-            res = new NumberValue(0);
+            res = NumberValue.ZERO;
 
         }
 
         return res;
     }
 
-    private Value<?> toStr() {
-        Value<?> lvalue = left.expr();
+    private static Value<?> toStr(Value<?> lvalue) {
         
         String aux;
 
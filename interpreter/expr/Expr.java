@@ -1,5 +1,6 @@
 package interpreter.expr;
 
+import interpreter.util.ExecutionContext;
 import interpreter.value.Value;
 
 public abstract class Expr {
@@ -14,6 +15,6 @@ public abstract class Expr {
         return line;
     }
 
-    public abstract Value<?> expr();
+    public abstract Value<?> expr(ExecutionContext ctx);
 
 }
@@ -0,0 +1,59 @@
+package interpreter.expr;
+
+import interpreter.util.ExecutionContext;
+import interpreter.value.Value;
+
+// Subexpressão que não muda durante um laço (criada pelo otimizador). Na
+// primeira avaliação o valor é guardado em uma variável temporária; nas
+// seguintes, é lido de lá. Antes de cada execução do laço a temporária
+// recebe UNSET, então a expressão é avaliada no mesmo ponto (e com os
+// mesmos erros) que antes, só que uma vez por execução do laço.
+public class InvariantExpr extends Expr {
+
+    public static final Value<?> UNSET = new Value<Object>() {
+        @Override
+        public Object value() {
+            return null;
+        }
+
+        @Override
+        public boolean eval() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "unset";
+        }
+    };
+
+    private Expr expr;
+    private Variable temp;
+
+    public InvariantExpr(int line, Expr expr, Variable temp) {
+        super(line);
+        this.expr = expr;
+        this.temp = temp;
+    }
+
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public Variable getTemp() {
+        return temp;
+    }
+
+    @Override
+    public Value<?> expr(ExecutionContext ctx) {
+        int slot = temp.getSlot();
+        Value<?> v = ctx.read(slot);
+        if (v == UNSET) {
+            v = expr.expr(ctx);
+            ctx.write(slot, v);
+        }
+
+        return v;
+    }
+
+}
@@ -0,0 +1,54 @@
+package interpreter.expr;
+
+import interpreter.value.ArrayValue;
+import interpreter.value.MapValue;
+import interpreter.value.Value;
+
+// Elemento já resolvido de um arranjo ou mapa: o contêiner e a posição
+// (índice do arranjo, posição no shape ou chave). Ler e escrever por ele
+// não avalia de novo a base nem o índice do acesso.
+public class Location {
+
+    private ArrayValue array;
+    private MapValue map;
+    private int index;
+    private String key;
+
+    Location(ArrayValue array, int index) {
+        this.array = array;
+        this.index = index;
+    }
+
+    // index >= 0: posição no shape do mapa; senão, usa a chave.
+    Location(MapValue map, int index, String key) {
+        this.map = map;
+        this.index = index;
+        this.key = key;
+    }
+
+    public Value<?> get() {
+        if (array != null)
+            return index < array.size() ? array.get(index) : null;
+
+        // a posição só vale enquanto o mapa tem o mesmo shape
+        return index >= 0 && map.shape() != null ? map.slot(index) : map.get(key);
+    }
+
+    public void set(Value<?> value) {
+        if (array != null) {
+            // escrever além do fim aumenta o arranjo, completando com null
+            while (array.size() < index)
+                array.add(null);
+
+            if (index == array.size())
+                array.add(value);
+            else
+                array.set(index, value);
+        } else if (index >= 0 && map.shape() != null) {
+            map.setSlot(index, value);
+        } else {
+            map.put(key, value);
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package interpreter.expr;
+
+import java.util.List;
+
+import interpreter.util.ExecutionContext;
+import interpreter.value.MapValue;
+import interpreter.value.Shape;
+import interpreter.value.Value;
+
+// Literal de mapa: [k1: e1, k2: e2, ...] ou [:]. O shape das chaves é
+// calculado aqui, uma vez; cada avaliação só cria o arranjo de valores,
+// e todos os mapas do literal compartilham o shape.
+public class MapExpr extends Expr {
+
+    private List<String> keys;
+    private List<Expr> values;
+    private Shape shape;
+    private int[] positions;
+
+    public MapExpr(int line, List<String> keys, List<Expr> values) {
+        super(line);
+
+        this.keys = keys;
+        this.values = values;
+
+        // uma chave repetida fica na primeira posição, com o último valor
+        Shape s = Shape.EMPTY;
+        for (String k : keys)
+            s = s.with(k);
+        this.shape = s;
+        this.positions = new int[keys.size()];
+        for (int i = 0; i < positions.length; i++)
+            this.positions[i] = s.indexOf(keys.get(i));
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public List<Expr> getValues() {
+        return values;
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    @Override
+    public Value<?> expr(ExecutionContext ctx) {
+        Value<?>[] slots = new Value<?>[shape.size()];
+        for (int i = 0; i < positions.length; i++)
+            slots[positions[i]] = values.get(i).expr(ctx);
+
+        return new MapValue(shape, slots);
+    }
+
+}
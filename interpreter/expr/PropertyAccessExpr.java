@@ -0,0 +1,44 @@
+package interpreter.expr;
+
+import interpreter.util.ExecutionContext;
+import interpreter.value.MapValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// m.nome (ou m['nome']): índice constante de texto. A chave é sempre a
+// mesma, então o cache do ponto só distingue os shapes dos mapas que
+// passam por aqui.
+public class PropertyAccessExpr extends AccessExpr {
+
+    private TextValue key;
+
+    PropertyAccessExpr(int line, SetExpr base, ConstExpr index) {
+        super(line, base, index);
+
+        this.key = (TextValue) index.getValue();
+    }
+
+    public String getKey() {
+        return key.value();
+    }
+
+    @Override
+    public Value<?> expr(ExecutionContext ctx) {
+        return get(super.getBase().expr(ctx));
+    }
+
+    @Override
+    public Location locate(ExecutionContext ctx) {
+        return locate(super.getBase().expr(ctx), key);
+    }
+
+    // Valor da chave no valor base; usado também pelos compiladores.
+    public Value<?> get(Value<?> bvalue) {
+        if (bvalue instanceof MapValue)
+            return map((MapValue) bvalue, key.value());
+
+        cache.miss();
+        return access(super.getLine(), bvalue, key);
+    }
+
+}
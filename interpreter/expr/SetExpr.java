@@ -1,5 +1,6 @@
 package interpreter.expr;
 
+import interpreter.util.ExecutionContext;
 import interpreter.value.Value;
 
 public abstract class SetExpr extends Expr {
@@ -9,8 +10,8 @@ public abstract class SetExpr extends Expr {
     }
 
     @Override
-    public abstract Value<?> expr();
+    public abstract Value<?> expr(ExecutionContext ctx);
 
-    public abstract void setValue(Value<?> value);
+    public abstract void setValue(ExecutionContext ctx, Value<?> value);
     
 }
@@ -0,0 +1,245 @@
+package interpreter.expr;
+
+import interpreter.command.AssignCommand;
+import interpreter.value.BooleanValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Versão especializada de um operador binário para os tipos observados
+// em um ponto do programa. O nó que a usa testa accepts() antes de
+// apply(); se o teste falhar, volta para o caminho genérico.
+public abstract class Specialization {
+
+    public abstract boolean accepts(Value<?> lvalue, Value<?> rvalue);
+
+    public abstract Value<?> apply(Value<?> lvalue, Value<?> rvalue);
+
+    // Especialização para os operandos recebidos, ou null se não houver.
+    public static Specialization forBinary(BinaryExpr.Op op, Value<?> lvalue, Value<?> rvalue) {
+        return forBinary(op, type(lvalue), type(rvalue));
+    }
+
+    // O mesmo, a partir das classes dos operandos (conhecidas pela
+    // inferência de tipos antes da execução).
+    public static Specialization forBinary(BinaryExpr.Op op, Class<?> ltype, Class<?> rtype) {
+        if (ltype == NumberValue.class && rtype == NumberValue.class) {
+            switch (op) {
+                case EqualOp:
+                    return INT_EQUAL;
+                case NotEqualOp:
+                    return INT_NOT_EQUAL;
+                case LowerThanOp:
+                    return INT_LOWER_THAN;
+                case LowerEqualOp:
+                    return INT_LOWER_EQUAL;
+                case GreaterThanOp:
+                    return INT_GREATER_THAN;
+                case GreaterEqualOp:
+                    return INT_GREATER_EQUAL;
+                case AddOp:
+                    return INT_ADD;
+                case SubOp:
+                    return INT_SUB;
+                case MulOp:
+                    return INT_MUL;
+                case DivOp:
+                    return INT_DIV;
+                case ModOp:
+                    return INT_MOD;
+                case PowerOp:
+                    return INT_POWER;
+                default:
+                    return null;
+            }
+        }
+
+        if (ltype == TextValue.class) {
+            if (rtype == TextValue.class) {
+                switch (op) {
+                    case AddOp:
+                        return TEXT_CONCAT;
+                    case EqualOp:
+                        return TEXT_EQUAL;
+                    case NotEqualOp:
+                        return TEXT_NOT_EQUAL;
+                    default:
+                        return null;
+                }
+            }
+
+            if (rtype == NumberValue.class && op == BinaryExpr.Op.AddOp)
+                return TEXT_INT_CONCAT;
+        }
+
+        return null;
+    }
+
+    public static Specialization forAssign(AssignCommand.Op op, Value<?> lvalue, Value<?> rvalue) {
+        return forAssign(op, type(lvalue), type(rvalue));
+    }
+
+    public static Specialization forAssign(AssignCommand.Op op, Class<?> ltype, Class<?> rtype) {
+        // += em texto concatena como o + de BinaryExpr.
+        if (ltype == TextValue.class && op == AssignCommand.Op.AddOp) {
+            if (rtype == TextValue.class)
+                return TEXT_CONCAT;
+            if (rtype == NumberValue.class)
+                return TEXT_INT_CONCAT;
+            return null;
+        }
+
+        if (ltype != NumberValue.class || rtype != NumberValue.class)
+            return null;
+
+        switch (op) {
+            case AddOp:
+                return INT_ADD;
+            case SubOp:
+                return INT_SUB;
+            case MulOp:
+                return INT_MUL;
+            case DivOp:
+                return INT_DIV;
+            case ModOp:
+                return INT_MOD;
+            case PowerOp:
+                return INT_POWER;
+            default:
+                return null;
+        }
+    }
+
+    private static Class<?> type(Value<?> value) {
+        return value == null ? null : value.getClass();
+    }
+
+    private static abstract class IntArith extends Specialization {
+        @Override
+        public boolean accepts(Value<?> lvalue, Value<?> rvalue) {
+            return lvalue instanceof NumberValue && rvalue instanceof NumberValue;
+        }
+
+        @Override
+        public Value<?> apply(Value<?> lvalue, Value<?> rvalue) {
+            int lv = ((NumberValue) lvalue).intValue();
+            int rv = ((NumberValue) rvalue).intValue();
+            return NumberValue.of(compute(lv, rv));
+        }
+
+        abstract int compute(int lv, int rv);
+    }
+
+    private static abstract class IntTest extends Specialization {
+        @Override
+        public boolean accepts(Value<?> lvalue, Value<?> rvalue) {
+            return lvalue instanceof NumberValue && rvalue instanceof NumberValue;
+        }
+
+        @Override
+        public Value<?> apply(Value<?> lvalue, Value<?> rvalue) {
+            int lv = ((NumberValue) lvalue).intValue();
+            int rv = ((NumberValue) rvalue).intValue();
+            return BooleanValue.of(test(lv, rv));
+        }
+
+        abstract boolean test(int lv, int rv);
+    }
+
+    private static abstract class TextTest extends Specialization {
+        @Override
+        public boolean accepts(Value<?> lvalue, Value<?> rvalue) {
+            return lvalue instanceof TextValue && rvalue instanceof TextValue;
+        }
+
+        @Override
+        public Value<?> apply(Value<?> lvalue, Value<?> rvalue) {
+            String lv = ((TextValue) lvalue).value();
+            String rv = ((TextValue) rvalue).value();
+            return BooleanValue.of(test(lv, rv));
+        }
+
+        abstract boolean test(String lv, String rv);
+    }
+
+    static final Specialization INT_ADD = new IntArith() {
+        int compute(int lv, int rv) { return lv + rv; }
+    };
+
+    static final Specialization INT_SUB = new IntArith() {
+        int compute(int lv, int rv) { return lv - rv; }
+    };
+
+    static final Specialization INT_MUL = new IntArith() {
+        int compute(int lv, int rv) { return lv * rv; }
+    };
+
+    static final Specialization INT_DIV = new IntArith() {
+        int compute(int lv, int rv) { return lv / rv; }
+    };
+
+    static final Specialization INT_MOD = new IntArith() {
+        int compute(int lv, int rv) { return lv % rv; }
+    };
+
+    static final Specialization INT_POWER = new IntArith() {
+        int compute(int lv, int rv) { return (int) Math.pow(lv, rv); }
+    };
+
+    static final Specialization INT_EQUAL = new IntTest() {
+        boolean test(int lv, int rv) { return lv == rv; }
+    };
+
+    static final Specialization INT_NOT_EQUAL = new IntTest() {
+        boolean test(int lv, int rv) { return lv != rv; }
+    };
+
+    static final Specialization INT_LOWER_THAN = new IntTest() {
+        boolean test(int lv, int rv) { return lv < rv; }
+    };
+
+    static final Specialization INT_LOWER_EQUAL = new IntTest() {
+        boolean test(int lv, int rv) { return lv <= rv; }
+    };
+
+    static final Specialization INT_GREATER_THAN = new IntTest() {
+        boolean test(int lv, int rv) { return lv > rv; }
+    };
+
+    static final Specialization INT_GREATER_EQUAL = new IntTest() {
+        boolean test(int lv, int rv) { return lv >= rv; }
+    };
+
+    static final Specialization TEXT_EQUAL = new TextTest() {
+        boolean test(String lv, String rv) { return lv.equals(rv); }
+    };
+
+    static final Specialization TEXT_NOT_EQUAL = new TextTest() {
+        boolean test(String lv, String rv) { return !lv.equals(rv); }
+    };
+
+    static final Specialization TEXT_CONCAT = new Specialization() {
+        @Override
+        public boolean accepts(Value<?> lvalue, Value<?> rvalue) {
+            return lvalue instanceof TextValue && rvalue instanceof TextValue;
+        }
+
+        @Override
+        public Value<?> apply(Value<?> lvalue, Value<?> rvalue) {
+            return ((TextValue) lvalue).concat((TextValue) rvalue);
+        }
+    };
+
+    static final Specialization TEXT_INT_CONCAT = new Specialization() {
+        @Override
+        public boolean accepts(Value<?> lvalue, Value<?> rvalue) {
+            return lvalue instanceof TextValue && rvalue instanceof NumberValue;
+        }
+
+        @Override
+        public Value<?> apply(Value<?> lvalue, Value<?> rvalue) {
+            return ((TextValue) lvalue).concat(((NumberValue) rvalue).intValue());
+        }
+    };
+
+}
@@ -0,0 +1,55 @@
+package interpreter.expr;
+
+import interpreter.util.ExecutionContext;
+import interpreter.value.Value;
+
+// BinaryExpr cujos operandos têm tipo conhecido antes da execução (pela
+// inferência de tipos do otimizador). A especialização é escolhida na
+// criação e aplicada sem testar os operandos nem voltar ao caminho
+// genérico.
+public class TypedBinaryExpr extends BinaryExpr {
+
+    private Class<?> ltype;
+    private Class<?> rtype;
+    private Specialization specialization;
+
+    private TypedBinaryExpr(int line, Expr left, Op op, Expr right, Class<?> ltype, Class<?> rtype,
+            Specialization specialization) {
+        super(line, left, op, right);
+
+        this.ltype = ltype;
+        this.rtype = rtype;
+        this.specialization = specialization;
+    }
+
+    // Nó tipado, ou o BinaryExpr comum se não há especialização para os
+    // tipos dados.
+    public static BinaryExpr create(int line, Expr left, Op op, Expr right, Class<?> ltype, Class<?> rtype) {
+        Specialization s = Specialization.forBinary(op, ltype, rtype);
+        if (s == null)
+            return new BinaryExpr(line, left, op, right);
+
+        return new TypedBinaryExpr(line, left, op, right, ltype, rtype, s);
+    }
+
+    public Class<?> getLeftType() {
+        return ltype;
+    }
+
+    public Class<?> getRightType() {
+        return rtype;
+    }
+
+    @Override
+    public Specialization getSpecialization() {
+        return specialization;
+    }
+
+    @Override
+    public Value<?> expr(ExecutionContext ctx) {
+        Value<?> lvalue = super.getLeft().expr(ctx);
+        Value<?> rvalue = super.getRight().expr(ctx);
+        return specialization.apply(lvalue, rvalue);
+    }
+
+}
@@ -1,7 +1,6 @@
 package interpreter.expr;
 
-import java.util.Scanner;
-
+import interpreter.util.ExecutionContext;
 import interpreter.util.Utils;
 import interpreter.value.BooleanValue;
 import interpreter.value.NumberValue;
@@ -19,7 +18,6 @@ public class UnaryExpr extends Expr {
         KeysOp,
         ValuesOp;
     }
-    private static Scanner input = new Scanner(System.in);
 
     private Expr expr;
     private Op op;
@@ -31,79 +29,90 @@ public class UnaryExpr extends Expr {
         this.op = op;
     }
 
+    public Expr getExpr() {
+        return expr;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
     @Override
-    public Value<?> expr() {
+    public Value<?> expr(ExecutionContext ctx) {
+        Value<?> value = expr.expr(ctx);
+
+        return evaluate(ctx, super.getLine(), op, value);
+    }
+
+    public static Value<?> evaluate(ExecutionContext ctx, int line, Op op, Value<?> value) {
         Value<?> v = null;
         switch (op) {
             case NotOp:
-                v = notOp();
+                v = notOp(value);
                 break;
             case NegOp:
-                v = negOp();
+                v = negOp(line, value);
                 break;
             case ReadOp:
-                v = readOp();
+                v = readOp(ctx, value);
                 break;
             case EmptyOp:
-                v = emptyOp();
+                v = emptyOp(value);
                 break;
             case SizeOp:
-                v = sizeOp();
+                v = sizeOp(value);
                 break;
             case KeysOp:
-                v = keysOp();
+                v = keysOp(value);
                 break;
             case ValuesOp:
-                v = valuesOp();
+                v = valuesOp(value);
                 break;
             default:
-                Utils.abort(super.getLine());
+                Utils.abort(line);
         }
 
         return v;
     }
 
-    private Value<?> notOp() {
-        Value<?> v = expr.expr();
+    private static Value<?> notOp(Value<?> v) {
         boolean b = v == null ? false : v.eval();
-        BooleanValue bv = new BooleanValue(!b);
+        BooleanValue bv = BooleanValue.of(!b);
         return bv;
     }
 
-    private Value<?> negOp() {
-        Value<?> v = expr.expr();
+    private static Value<?> negOp(int line, Value<?> v) {
         if (!(v instanceof NumberValue))
-            Utils.abort(super.getLine());
+            Utils.abort(line);
 
         NumberValue nv = (NumberValue) v;
-        int n = nv.value();
+        int n = nv.intValue();
 
-        NumberValue res = new NumberValue(-n);
+        NumberValue res = NumberValue.of(-n);
         return res;
     }
 
-    private Value<?> readOp() {
-        Value<?> v = expr.expr();
-        System.out.print(v == null ? "null" : v.toString());
+    private static Value<?> readOp(ExecutionContext ctx, Value<?> v) {
+        ctx.out().print(v == null ? "null" : v.toString());
 
-        String line = input.nextLine();
+        String line = ctx.in().nextLine();
         TextValue tv = new TextValue(line);
         return tv;
     }
 
-    private Value<?> emptyOp() {
+    private static Value<?> emptyOp(Value<?> v) {
         return null;
     }
 
-    private Value<?> sizeOp() {
+    private static Value<?> sizeOp(Value<?> v) {
         return null;
     }
 
-    private Value<?> keysOp() {
+    private static Value<?> keysOp(Value<?> v) {
         return null;
     }
 
-    private Value<?> valuesOp() {
+    private static Value<?> valuesOp(Value<?> v) {
         return null;
     }
 
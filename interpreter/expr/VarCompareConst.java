@@ -0,0 +1,62 @@
+package interpreter.expr;
+
+import interpreter.util.ExecutionContext;
+import interpreter.value.BooleanValue;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Superinstrução para var < const (e <=, >, >=): lê o slot e compara com
+// o inteiro da constante sem avaliar os dois filhos. Se a variável não
+// guarda um número, usa a comparação comum.
+public class VarCompareConst extends BinaryExpr {
+
+    private Variable var;
+    private NumberValue constant;
+    private int k;
+
+    private VarCompareConst(int line, Variable var, Op op, ConstExpr right) {
+        super(line, var, op, right);
+
+        this.var = var;
+        this.constant = (NumberValue) right.getValue();
+        this.k = constant.intValue();
+    }
+
+    // Nó fundido quando a comparação tem a forma var <op> número, senão
+    // o BinaryExpr comum.
+    public static BinaryExpr create(int line, Expr left, Op op, Expr right) {
+        if (matches(left, op, right))
+            return new VarCompareConst(line, (Variable) left, op, (ConstExpr) right);
+
+        return new BinaryExpr(line, left, op, right);
+    }
+
+    public static boolean matches(Expr left, Op op, Expr right) {
+        return left instanceof Variable
+            && (op == Op.LowerThanOp || op == Op.LowerEqualOp
+                || op == Op.GreaterThanOp || op == Op.GreaterEqualOp)
+            && right instanceof ConstExpr
+            && ((ConstExpr) right).getValue() instanceof NumberValue;
+    }
+
+    @Override
+    public Value<?> expr(ExecutionContext ctx) {
+        Value<?> v = ctx.read(var.getSlot());
+        if (v instanceof NumberValue) {
+            int i = ((NumberValue) v).intValue();
+            switch (super.getOp()) {
+                case LowerThanOp:
+                    return BooleanValue.of(i < k);
+                case LowerEqualOp:
+                    return BooleanValue.of(i <= k);
+                case GreaterThanOp:
+                    return BooleanValue.of(i > k);
+                default:
+                    return BooleanValue.of(i >= k);
+            }
+        }
+
+        return evaluate(super.getLine(), super.getOp(), v, constant);
+    }
+
+}
@@ -1,30 +1,40 @@
 package interpreter.expr;
 
-import interpreter.util.Memory;
+import interpreter.util.ExecutionContext;
 import interpreter.value.Value;
 
 public class Variable extends SetExpr {
 
     private String name;
+    private int slot;
 
     public Variable(int line, String name) {
         super(line);
         this.name = name;
+        this.slot = -1;
     }
 
     public String getName() {
         return name;
     }
 
+    public int getSlot() {
+        return slot;
+    }
+
+    public void resolve(int slot) {
+        this.slot = slot;
+    }
+
     @Override
-    public Value<?> expr() {
-        Value<?> v = Memory.read(name);
+    public Value<?> expr(ExecutionContext ctx) {
+        Value<?> v = ctx.read(slot);
         return v;
     }
 
     @Override
-    public void setValue(Value<?> value) {
-        Memory.write(name, value);
+    public void setValue(ExecutionContext ctx, Value<?> value) {
+        ctx.write(slot, value);
     }
     
 }
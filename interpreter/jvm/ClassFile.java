@@ -0,0 +1,176 @@
+package interpreter.jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Escreve um .class mínimo: uma classe sem campos, só com métodos
+// estáticos. Usa a versão 49 para que a JVM verifique o código por
+// inferência de tipos e não exija a tabela StackMapTable.
+class ClassFile {
+
+    private static final int VERSION = 49;
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_Utf8 = 1;
+    private static final int CONSTANT_Integer = 3;
+    private static final int CONSTANT_Class = 7;
+    private static final int CONSTANT_Fieldref = 9;
+    private static final int CONSTANT_Methodref = 10;
+    private static final int CONSTANT_NameAndType = 12;
+
+    private ByteArrayOutputStream poolBytes;
+    private DataOutputStream pool;
+    private int poolCount;
+    private Map<String, Integer> entries;
+
+    private String name;
+    private List<byte[]> methods;
+
+    ClassFile(String name) {
+        this.poolBytes = new ByteArrayOutputStream();
+        this.pool = new DataOutputStream(poolBytes);
+        this.poolCount = 1;
+        this.entries = new HashMap<String, Integer>();
+        this.name = name;
+        this.methods = new ArrayList<byte[]>();
+    }
+
+    int utf8(String s) {
+        Integer index = entries.get("U" + s);
+        if (index != null)
+            return index;
+
+        try {
+            pool.writeByte(CONSTANT_Utf8);
+            pool.writeUTF(s);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return add("U" + s);
+    }
+
+    int integer(int value) {
+        Integer index = entries.get("I" + value);
+        if (index != null)
+            return index;
+
+        try {
+            pool.writeByte(CONSTANT_Integer);
+            pool.writeInt(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return add("I" + value);
+    }
+
+    int classRef(String internalName) {
+        return ref("C" + internalName, CONSTANT_Class, utf8(internalName), -1);
+    }
+
+    int fieldRef(String owner, String field, String desc) {
+        return ref("F" + owner + "." + field + ":" + desc, CONSTANT_Fieldref,
+            classRef(owner), nameAndType(field, desc));
+    }
+
+    int methodRef(String owner, String method, String desc) {
+        return ref("M" + owner + "." + method + desc, CONSTANT_Methodref,
+            classRef(owner), nameAndType(method, desc));
+    }
+
+    private int nameAndType(String n, String desc) {
+        return ref("N" + n + ":" + desc, CONSTANT_NameAndType, utf8(n), utf8(desc));
+    }
+
+    // Entrada com um ou dois índices de 16 bits (b < 0: só um).
+    private int ref(String key, int tag, int a, int b) {
+        Integer index = entries.get(key);
+        if (index != null)
+            return index;
+
+        try {
+            pool.writeByte(tag);
+            pool.writeShort(a);
+            if (b >= 0)
+                pool.writeShort(b);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return add(key);
+    }
+
+    private int add(String key) {
+        if (poolCount > 0xFFFF)
+            throw new IllegalStateException("constant pool cheio");
+
+        entries.put(key, poolCount);
+        return poolCount++;
+    }
+
+    void method(int access, String method, String desc, Code code) {
+        byte[] body = code.toBytes();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(method));
+            out.writeShort(utf8(desc));
+            out.writeShort(1);
+
+            // atributo Code
+            out.writeShort(utf8("Code"));
+            out.writeInt(12 + body.length);
+            out.writeShort(code.maxStack());
+            out.writeShort(code.maxLocals());
+            out.writeInt(body.length);
+            out.write(body);
+            out.writeShort(0); // exception_table
+            out.writeShort(0); // atributos
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        methods.add(bytes.toByteArray());
+    }
+
+    byte[] toBytes() {
+        int self = classRef(name);
+        int superClass = classRef("java/lang/Object");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            out.write(poolBytes.toByteArray());
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(self);
+            out.writeShort(superClass);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // campos
+            out.writeShort(methods.size());
+            for (byte[] m : methods)
+                out.write(m);
+            out.writeShort(0); // atributos
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+}
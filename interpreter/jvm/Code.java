@@ -0,0 +1,237 @@
+package interpreter.jvm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Corpo de um método: bytes das instruções, rótulos de salto e a altura
+// da pilha, acompanhada a cada instrução para calcular max_stack.
+class Code {
+
+    static final int ICONST_0 = 0x03;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC_W = 0x13;
+    static final int ILOAD = 0x15;
+    static final int ALOAD = 0x19;
+    static final int AALOAD = 0x32;
+    static final int ISTORE = 0x36;
+    static final int ASTORE = 0x3a;
+    static final int POP = 0x57;
+    static final int DUP = 0x59;
+    static final int IADD = 0x60;
+    static final int ISUB = 0x64;
+    static final int IMUL = 0x68;
+    static final int IDIV = 0x6c;
+    static final int IREM = 0x70;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IF_ICMPEQ = 0x9f;
+    static final int IF_ICMPNE = 0xa0;
+    static final int IF_ICMPLT = 0xa1;
+    static final int IF_ICMPGE = 0xa2;
+    static final int IF_ICMPGT = 0xa3;
+    static final int IF_ICMPLE = 0xa4;
+    static final int IF_ACMPNE = 0xa6;
+    static final int GOTO = 0xa7;
+    static final int RETURN = 0xb1;
+    static final int GETSTATIC = 0xb2;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESTATIC = 0xb8;
+    static final int CHECKCAST = 0xc0;
+    static final int WIDE = 0xc4;
+
+    private ClassFile cf;
+    private byte[] code;
+    private int size;
+    private int depth;
+    private int maxStack;
+    private int maxLocals;
+
+    // posição de cada rótulo (-1 enquanto não marcado), altura da pilha
+    // esperada nele e os saltos que apontam para ele
+    private int[] labels;
+    private int[] labelDepth;
+    private int labelCount;
+    private List<int[]> fixups;
+
+    Code(ClassFile cf, int maxLocals) {
+        this.cf = cf;
+        this.code = new byte[256];
+        this.maxLocals = maxLocals;
+        this.labels = new int[16];
+        this.labelDepth = new int[16];
+        this.fixups = new ArrayList<int[]>();
+    }
+
+    int maxStack() {
+        return maxStack;
+    }
+
+    int maxLocals() {
+        return maxLocals;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void local(int index) {
+        maxLocals = Math.max(maxLocals, index + 1);
+    }
+
+    int label() {
+        if (labelCount == labels.length) {
+            labels = Arrays.copyOf(labels, labelCount * 2);
+            labelDepth = Arrays.copyOf(labelDepth, labelCount * 2);
+        }
+
+        labels[labelCount] = -1;
+        labelDepth[labelCount] = -1;
+        return labelCount++;
+    }
+
+    void mark(int label) {
+        labels[label] = size;
+        if (labelDepth[label] >= 0)
+            depth = labelDepth[label];
+        else
+            labelDepth[label] = depth;
+    }
+
+    void op(int opcode, int delta) {
+        u1(opcode);
+        stack(delta);
+    }
+
+    void iconst(int value) {
+        if (value >= -1 && value <= 5) {
+            op(ICONST_0 + value, 1);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            op(BIPUSH, 1);
+            u1(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            op(SIPUSH, 1);
+            u2(value);
+        } else {
+            op(LDC_W, 1);
+            u2(cf.integer(value));
+        }
+    }
+
+    void aload(int index) {
+        var(ALOAD, index, 1);
+    }
+
+    void astore(int index) {
+        var(ASTORE, index, -1);
+    }
+
+    void iload(int index) {
+        var(ILOAD, index, 1);
+    }
+
+    void istore(int index) {
+        var(ISTORE, index, -1);
+    }
+
+    private void var(int opcode, int index, int delta) {
+        local(index);
+        if (index > 0xFF) {
+            u1(WIDE);
+            op(opcode, delta);
+            u2(index);
+        } else {
+            op(opcode, delta);
+            u1(index);
+        }
+    }
+
+    void getstatic(String owner, String name, String desc) {
+        op(GETSTATIC, 1);
+        u2(cf.fieldRef(owner, name, desc));
+    }
+
+    void checkcast(String internalName) {
+        op(CHECKCAST, 0);
+        u2(cf.classRef(internalName));
+    }
+
+    void invokestatic(String owner, String name, String desc) {
+        op(INVOKESTATIC, result(desc) - arguments(desc));
+        u2(cf.methodRef(owner, name, desc));
+    }
+
+    void invokevirtual(String owner, String name, String desc) {
+        op(INVOKEVIRTUAL, result(desc) - arguments(desc) - 1);
+        u2(cf.methodRef(owner, name, desc));
+    }
+
+    // Salto para um rótulo. O deslocamento é resolvido em toBytes().
+    void jump(int opcode, int label) {
+        int at = size;
+        if (opcode == GOTO)
+            op(opcode, 0);
+        else if (opcode == IFEQ || opcode == IFNE)
+            op(opcode, -1);
+        else
+            op(opcode, -2);
+
+        fixups.add(new int[] { at, label });
+        u2(0);
+
+        if (labelDepth[label] < 0)
+            labelDepth[label] = depth;
+    }
+
+    byte[] toBytes() {
+        for (int[] f : fixups) {
+            int offset = labels[f[1]] - f[0];
+            code[f[0] + 1] = (byte) (offset >> 8);
+            code[f[0] + 2] = (byte) offset;
+        }
+
+        return Arrays.copyOf(code, size);
+    }
+
+    private void stack(int delta) {
+        depth += delta;
+        maxStack = Math.max(maxStack, depth);
+    }
+
+    private void u1(int b) {
+        // saltos usam deslocamentos de 16 bits
+        if (size >= Short.MAX_VALUE)
+            throw new IllegalStateException("método grande demais");
+
+        if (size == code.length)
+            code = Arrays.copyOf(code, size * 2);
+
+        code[size++] = (byte) b;
+    }
+
+    private void u2(int v) {
+        u1(v >> 8);
+        u1(v);
+    }
+
+    private static int arguments(String desc) {
+        int n = 0;
+        int i = 1;
+        while (desc.charAt(i) != ')') {
+            while (desc.charAt(i) == '[')
+                i++;
+            if (desc.charAt(i) == 'L')
+                i = desc.indexOf(';', i);
+            i++;
+            n++;
+        }
+
+        return n;
+    }
+
+    private static int result(String desc) {
+        return desc.endsWith(")V") ? 0 : 1;
+    }
+
+}
@@ -0,0 +1,784 @@
+package interpreter.jvm;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.CountedForCommand;
+import interpreter.command.DeclarationType1Command;
+import interpreter.command.DeclarationType2Command;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.TypedAssignCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CastExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.InvariantExpr;
+import interpreter.expr.PropertyAccessExpr;
+import interpreter.expr.TypedBinaryExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.opt.Effects;
+import interpreter.opt.TypeInference;
+import interpreter.util.ExecutionContext;
+import interpreter.value.NumberValue;
+
+// Compila o script inteiro para um método estático de uma classe oculta:
+//
+//     static void run(ExecutionContext ctx, Object[] k)
+//
+// As variáveis do script ficam em locais da JVM (a partir do local 2),
+// carregadas do contexto na entrada e devolvidas a ele na saída. As
+// operações sobre valores chamam os mesmos métodos estáticos da árvore.
+// Nós desconhecidos executam pela árvore; antes de chamá-los as
+// variáveis que eles leem são gravadas no contexto e, depois, as que
+// eles atribuem são lidas de volta (Effects).
+//
+// O script passa antes pela inferência de tipos. Variáveis que ela prova
+// serem sempre números ficam em locais int e só são encaixotadas para ir
+// ao contexto ou para operações genéricas; a aritmética de
+// TypedBinaryExpr entre números e as comparações nas condições usam as
+// instruções int da JVM.
+public class JvmCompiler {
+
+    private static final String CLASS = "interpreter/jvm/Script";
+    private static final String RUN = "(Linterpreter/util/ExecutionContext;[Ljava/lang/Object;)V";
+
+    private static final String CTX = "interpreter/util/ExecutionContext";
+    private static final String VALUE = "Linterpreter/value/Value;";
+    private static final String BINARY = "interpreter/expr/BinaryExpr";
+    private static final String ASSIGN = "interpreter/command/AssignCommand";
+    private static final String NUMBER = "interpreter/value/NumberValue";
+    private static final String BOOLEAN = "interpreter/value/BooleanValue";
+    private static final String SUPPORT = "interpreter/jvm/JvmSupport";
+    private static final String LOCATION = "interpreter/expr/Location";
+    private static final String OP = "(I" + VALUE + VALUE + ")" + VALUE;
+
+    // Métodos de BinaryExpr, na ordem de BinaryExpr.Op.
+    private static final String[] BINARY_OPS = {
+        "andOp", "orOp", "equalOp", "notEqualOp", "lowerThanOp", "lowerEqualOp",
+        "greaterThanOp", "greaterEqualOp", "containsOp", "notContainsOp",
+        "addOp", "subOp", "mulOp", "divOp", "modOp", "powerOp"
+    };
+
+    // Métodos de AssignCommand, na ordem de AssignCommand.Op (sem StdOp).
+    private static final String[] ASSIGN_OPS = {
+        "addOp", "subOp", "mulOp", "divOp", "modOp", "powerOp"
+    };
+
+    private static final int CTX_LOCAL = 0;
+    private static final int K_LOCAL = 1;
+    private static final int FIRST_VAR = 2;
+
+    private ClassFile cf;
+    private Code code;
+    private int vars;
+    private boolean[] ints;
+    private int temps;
+    private List<Object> constants;
+    private Map<Object, Integer> constantIndex;
+    private int fullSpills;
+
+    private JvmCompiler(int vars, boolean[] ints) {
+        this.cf = new ClassFile(CLASS);
+        this.code = new Code(cf, FIRST_VAR + vars);
+        this.vars = vars;
+        this.ints = ints;
+        this.temps = FIRST_VAR + vars;
+        this.constants = new ArrayList<Object>();
+        this.constantIndex = new IdentityHashMap<Object, Integer>();
+    }
+
+    // vars: número de slots do contexto (SlotTable.size()).
+    public static JvmScript compile(Command cmd, int vars) {
+        // os nós tipados dizem onde a aritmética pode ser int
+        TypeInference ti = new TypeInference(vars);
+        cmd = ti.run(cmd);
+
+        JvmCompiler c = new JvmCompiler(vars, ti.numbers());
+        c.reload();
+        c.command(cmd);
+        return c.finish();
+    }
+
+    // Continuação de um laço que começou na árvore: um while inteiro ou só
+    // as voltas do for, sem a inicialização. Os tipos na entrada não são
+    // conhecidos, então nenhuma variável fica em local int.
+    public static JvmScript compileLoop(Command loop, int vars) {
+        JvmCompiler c = new JvmCompiler(vars, new boolean[vars]);
+        c.reload();
+        if (loop instanceof ForCommand)
+            c.loop((ForCommand) loop);
+        else
+            c.command(loop);
+        return c.finish();
+    }
+
+    private JvmScript finish() {
+        spill();
+        code.op(Code.RETURN, 0);
+        cf.method(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, "run", RUN, code);
+
+        byte[] bytes = cf.toBytes();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            MethodHandle run = lookup.findStatic(lookup.lookupClass(), "run",
+                MethodType.methodType(void.class, ExecutionContext.class, Object[].class));
+            return new JvmScript(run, constants.toArray(), bytes, fullSpills);
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void command(Command cmd) {
+        if (cmd instanceof BlocksCommand) {
+            for (Command c : ((BlocksCommand) cmd).getCommands())
+                command(c);
+        } else if (cmd instanceof AssignCommand) {
+            assign((AssignCommand) cmd);
+        } else if (cmd instanceof DeclarationType1Command) {
+            DeclarationType1Command dc = (DeclarationType1Command) cmd;
+            declaration(dc.getLhs(), dc.getRhs());
+        } else if (cmd instanceof DeclarationType2Command) {
+            DeclarationType2Command dc = (DeclarationType2Command) cmd;
+            declaration(dc.getLhs(), dc.getRhs());
+        } else if (cmd instanceof PrintCommand) {
+            PrintCommand pc = (PrintCommand) cmd;
+            code.aload(CTX_LOCAL);
+            expr(pc.getExpr());
+            code.iconst(pc.isNewline() ? 1 : 0);
+            code.invokestatic(SUPPORT, "print", "(L" + CTX + ";" + VALUE + "Z)V");
+        } else if (cmd instanceof IfCommand) {
+            IfCommand ic = (IfCommand) cmd;
+            int otherwise = code.label();
+            test(ic.getExpr(), otherwise);
+            command(ic.getCommandsIf());
+            if (ic.getCommandsElse() != null) {
+                int end = code.label();
+                code.jump(Code.GOTO, end);
+                code.mark(otherwise);
+                command(ic.getCommandsElse());
+                code.mark(end);
+            } else {
+                code.mark(otherwise);
+            }
+        } else if (cmd instanceof WhileCommand) {
+            WhileCommand wc = (WhileCommand) cmd;
+            int top = code.label();
+            int end = code.label();
+            code.mark(top);
+            test(wc.getExpr(), end);
+            command(wc.getCommands());
+            code.jump(Code.GOTO, top);
+            code.mark(end);
+        } else if (cmd instanceof ForCommand) {
+            ForCommand fc = (ForCommand) cmd;
+            init(fc);
+            loop(fc);
+        } else {
+            tree(cmd);
+        }
+    }
+
+    private void init(ForCommand fc) {
+        for (Command c : fc.getLeftDecl())
+            command(c);
+        for (Command c : fc.getLeftAssign())
+            command(c);
+    }
+
+    private void loop(ForCommand fc) {
+        if (fc instanceof CountedForCommand) {
+            counted((CountedForCommand) fc);
+        } else if (fc.getExpr() != null) {
+            // sem condição o laço não executa, como no ForCommand
+            int top = code.label();
+            int end = code.label();
+            code.mark(top);
+            test(fc.getExpr(), end);
+            command(fc.getCommands());
+            for (AssignCommand ac : fc.getRight())
+                command(ac);
+            code.jump(Code.GOTO, top);
+            code.mark(end);
+        }
+    }
+
+    // O contador e o limite vão para locais int; se algum deles não for
+    // número na entrada, o laço roda pela árvore (ForCommand.loop).
+    private void counted(CountedForCommand fc) {
+        int var = fc.getCounter().getSlot();
+        int generic = code.label();
+        int end = code.label();
+
+        if (!ints[var]) {
+            code.aload(FIRST_VAR + var);
+            code.invokestatic(SUPPORT, "isInt", "(" + VALUE + ")Z");
+            code.jump(Code.IFEQ, generic);
+        }
+        expr(fc.getBound());
+        code.invokestatic(SUPPORT, "isInt", "(" + VALUE + ")Z");
+        code.jump(Code.IFEQ, generic);
+
+        int i = temps++;
+        int n = temps++;
+        intVar(var);
+        code.istore(i);
+        expr(fc.getBound());
+        intValue();
+        code.istore(n);
+
+        int top = code.label();
+        int exit = code.label();
+        code.mark(top);
+        code.iload(i);
+        code.iload(n);
+        switch (fc.getCondition()) {
+            case LowerThanOp:
+                code.jump(Code.IF_ICMPGE, exit);
+                break;
+            case LowerEqualOp:
+                code.jump(Code.IF_ICMPGT, exit);
+                break;
+            case GreaterThanOp:
+                code.jump(Code.IF_ICMPLE, exit);
+                break;
+            default:
+                code.jump(Code.IF_ICMPLT, exit);
+                break;
+        }
+
+        if (fc.bodyReadsCounter()) {
+            code.iload(i);
+            setInt(var);
+        }
+        command(fc.getCommands());
+        code.iload(i);
+        code.iconst(fc.getStep());
+        code.op(Code.IADD, -1);
+        code.istore(i);
+        code.jump(Code.GOTO, top);
+
+        code.mark(exit);
+        code.iload(i);
+        setInt(var);
+        code.jump(Code.GOTO, end);
+        temps -= 2;
+
+        code.mark(generic);
+        Effects e = Effects.of(fc);
+        spill(e);
+        constant(fc, "interpreter/command/ForCommand");
+        code.aload(CTX_LOCAL);
+        code.invokevirtual("interpreter/command/ForCommand", "loop", "(L" + CTX + ";)V");
+        reload(e);
+        code.mark(end);
+    }
+
+    private void intValue() {
+        code.checkcast(NUMBER);
+        code.invokevirtual(NUMBER, "intValue", "()I");
+    }
+
+    private void box() {
+        code.invokestatic(NUMBER, "of", "(I)L" + NUMBER + ";");
+    }
+
+    // Valor da variável na pilha, encaixotado se ela fica em local int.
+    private void load(int var) {
+        if (ints[var]) {
+            code.iload(FIRST_VAR + var);
+            box();
+        } else {
+            code.aload(FIRST_VAR + var);
+        }
+    }
+
+    // Valor na pilha -> variável. Em variável int o valor é sempre número.
+    private void store(int var) {
+        if (ints[var]) {
+            intValue();
+            code.istore(FIRST_VAR + var);
+        } else {
+            code.astore(FIRST_VAR + var);
+        }
+    }
+
+    // int da variável (que contém número) na pilha
+    private void intVar(int var) {
+        if (ints[var]) {
+            code.iload(FIRST_VAR + var);
+        } else {
+            code.aload(FIRST_VAR + var);
+            intValue();
+        }
+    }
+
+    // int no topo da pilha -> variável
+    private void setInt(int var) {
+        if (ints[var]) {
+            code.istore(FIRST_VAR + var);
+        } else {
+            box();
+            code.astore(FIRST_VAR + var);
+        }
+    }
+
+    private void declaration(List<Variable> lhs, List<Expr> rhs) {
+        for (int i = 0; i < lhs.size(); i++) {
+            Expr e = i < rhs.size() ? rhs.get(i) : null;
+            int var = lhs.get(i).getSlot();
+            if (ints[var]) {
+                intExpr(e);
+                code.istore(FIRST_VAR + var);
+            } else {
+                exprOrNull(e);
+                code.astore(FIRST_VAR + var);
+            }
+        }
+    }
+
+    private void assign(AssignCommand ac) {
+        if (ac.getLhs() instanceof Variable) {
+            int var = ((Variable) ac.getLhs()).getSlot();
+            if (ac.getOp() == AssignCommand.Op.StdOp && ints[var]) {
+                intExpr(ac.getRhs());
+                code.istore(FIRST_VAR + var);
+                return;
+            } else if (ac.getOp() == AssignCommand.Op.StdOp) {
+                expr(ac.getRhs());
+            } else if (ac instanceof TypedAssignCommand && isInt((TypedAssignCommand) ac)) {
+                intVar(var);
+                intExpr(ac.getRhs());
+                intOp(BinaryExpr.Op.valueOf(ac.getOp().name()));
+                setInt(var);
+                return;
+            } else if (ints[var] && ac.getRhs() instanceof AccessExpr) {
+                // número op= elemento só retorna se o elemento for número
+                intVar(var);
+                intElement((AccessExpr) ac.getRhs(), ac.getLine());
+                intOp(BinaryExpr.Op.valueOf(ac.getOp().name()));
+                setInt(var);
+                return;
+            } else {
+                code.iconst(ac.getLine());
+                load(var);
+                expr(ac.getRhs());
+                code.invokestatic(ASSIGN, ASSIGN_OPS[ac.getOp().ordinal() - 1], OP);
+            }
+            store(var);
+        } else if (ac.getLhs() instanceof AccessExpr) {
+            element(ac);
+        } else {
+            tree(ac);
+        }
+    }
+
+    // a[i] = v e a[i] op= v pelo Location do acesso, na ordem da árvore:
+    // em '=' o valor antes do elemento; em 'op=' o elemento antes.
+    private void element(AssignCommand ac) {
+        AccessExpr ae = (AccessExpr) ac.getLhs();
+        int value = temps++;
+        int loc = temps++;
+
+        if (ac.getOp() == AssignCommand.Op.StdOp) {
+            expr(ac.getRhs());
+            code.astore(value);
+        }
+
+        constant(ae, "interpreter/expr/AccessExpr");
+        expr(ae.getBase());
+        expr(ae.getIndex());
+        code.invokevirtual("interpreter/expr/AccessExpr", "locate", "(" + VALUE + VALUE + ")L" + LOCATION + ";");
+        code.astore(loc);
+
+        if (ac.getOp() != AssignCommand.Op.StdOp) {
+            code.iconst(ac.getLine());
+            code.aload(loc);
+            code.invokevirtual(LOCATION, "get", "()" + VALUE);
+            expr(ac.getRhs());
+            code.invokestatic(ASSIGN, ASSIGN_OPS[ac.getOp().ordinal() - 1], OP);
+            code.astore(value);
+        }
+
+        code.aload(loc);
+        code.aload(value);
+        code.invokevirtual(LOCATION, "set", "(" + VALUE + ")V");
+        temps -= 2;
+    }
+
+    // Executa o comando pela árvore.
+    private void tree(Command cmd) {
+        Effects e = Effects.of(cmd);
+        spill(e);
+        constant(cmd, "interpreter/command/Command");
+        code.aload(CTX_LOCAL);
+        code.invokevirtual("interpreter/command/Command", "execute", "(L" + CTX + ";)V");
+        reload(e);
+    }
+
+    // Avalia a condição e salta para 'target' se ela for falsa.
+    private void test(Expr expr, int target) {
+        if (expr instanceof TypedBinaryExpr && isInt((TypedBinaryExpr) expr)) {
+            BinaryExpr be = (BinaryExpr) expr;
+            int opcode = negated(be.getOp());
+            if (opcode != 0) {
+                intExpr(be.getLeft());
+                intExpr(be.getRight());
+                code.jump(opcode, target);
+                return;
+            }
+        }
+
+        if (expr instanceof BinaryExpr && elementOp((BinaryExpr) expr)) {
+            BinaryExpr be = (BinaryExpr) expr;
+            int opcode = negated(be.getOp());
+            if (opcode != 0) {
+                intOperands(be);
+                code.jump(opcode, target);
+                return;
+            }
+        }
+
+        expr(expr);
+        code.invokestatic(SUPPORT, "test", "(" + VALUE + ")Z");
+        code.jump(Code.IFEQ, target);
+    }
+
+    private void exprOrNull(Expr expr) {
+        if (expr != null)
+            expr(expr);
+        else
+            constant(null, "interpreter/value/Value");
+    }
+
+    private void expr(Expr expr) {
+        if (expr instanceof ConstExpr) {
+            constant(((ConstExpr) expr).getValue(), "interpreter/value/Value");
+        } else if (expr instanceof Variable) {
+            load(((Variable) expr).getSlot());
+        } else if (expr instanceof TypedBinaryExpr && arithmetic((BinaryExpr) expr)) {
+            intExpr(expr);
+            box();
+        } else if (expr instanceof BinaryExpr && elementOp((BinaryExpr) expr)) {
+            elementBinary((BinaryExpr) expr);
+        } else if (expr instanceof BinaryExpr) {
+            binary((BinaryExpr) expr);
+        } else if (expr instanceof UnaryExpr) {
+            UnaryExpr ue = (UnaryExpr) expr;
+            code.aload(CTX_LOCAL);
+            code.iconst(ue.getLine());
+            code.getstatic("interpreter/expr/UnaryExpr$Op", ue.getOp().name(), "Linterpreter/expr/UnaryExpr$Op;");
+            expr(ue.getExpr());
+            code.invokestatic("interpreter/expr/UnaryExpr", "evaluate",
+                "(L" + CTX + ";ILinterpreter/expr/UnaryExpr$Op;" + VALUE + ")" + VALUE);
+        } else if (expr instanceof CastExpr) {
+            CastExpr ce = (CastExpr) expr;
+            code.iconst(ce.getLine());
+            code.getstatic("interpreter/expr/CastExpr$Op", ce.getOp().name(), "Linterpreter/expr/CastExpr$Op;");
+            expr(ce.getExpr());
+            code.invokestatic("interpreter/expr/CastExpr", "evaluate",
+                "(ILinterpreter/expr/CastExpr$Op;" + VALUE + ")" + VALUE);
+        } else if (expr instanceof PropertyAccessExpr) {
+            // o cache do shape fica no próprio nó
+            PropertyAccessExpr pa = (PropertyAccessExpr) expr;
+            constant(pa, "interpreter/expr/PropertyAccessExpr");
+            expr(pa.getBase());
+            code.invokevirtual("interpreter/expr/PropertyAccessExpr", "get", "(" + VALUE + ")" + VALUE);
+        } else if (expr instanceof AccessExpr) {
+            AccessExpr ae = (AccessExpr) expr;
+            constant(ae, "interpreter/expr/AccessExpr");
+            expr(ae.getBase());
+            expr(ae.getIndex());
+            code.invokevirtual("interpreter/expr/AccessExpr", "get", "(" + VALUE + VALUE + ")" + VALUE);
+        } else if (expr instanceof InvariantExpr) {
+            // temporária ainda UNSET: avalia e guarda
+            InvariantExpr ie = (InvariantExpr) expr;
+            int var = FIRST_VAR + ie.getTemp().getSlot();
+            int done = code.label();
+            code.aload(var);
+            code.getstatic("interpreter/expr/InvariantExpr", "UNSET", VALUE);
+            code.jump(Code.IF_ACMPNE, done);
+            expr(ie.getExpr());
+            code.astore(var);
+            code.mark(done);
+            code.aload(var);
+        } else {
+            Effects e = Effects.of(expr);
+            spill(e);
+            constant(expr, "interpreter/expr/Expr");
+            code.aload(CTX_LOCAL);
+            code.invokevirtual("interpreter/expr/Expr", "expr", "(L" + CTX + ";)" + VALUE);
+            reload(e);
+        }
+    }
+
+    // Expressão que certamente produz número, com o resultado como int.
+    private void intExpr(Expr expr) {
+        if (expr instanceof ConstExpr) {
+            code.iconst(((NumberValue) ((ConstExpr) expr).getValue()).intValue());
+        } else if (expr instanceof Variable && ints[((Variable) expr).getSlot()]) {
+            code.iload(FIRST_VAR + ((Variable) expr).getSlot());
+        } else if (expr instanceof TypedBinaryExpr && arithmetic((BinaryExpr) expr)) {
+            BinaryExpr be = (BinaryExpr) expr;
+            intExpr(be.getLeft());
+            intExpr(be.getRight());
+            intOp(be.getOp());
+        } else if (expr instanceof BinaryExpr && elementOp((BinaryExpr) expr)
+                && negated(((BinaryExpr) expr).getOp()) == 0) {
+            BinaryExpr be = (BinaryExpr) expr;
+            intOperands(be);
+            intOp(be.getOp());
+        } else {
+            expr(expr);
+            intValue();
+        }
+    }
+
+    // a[i] op n e n op a[i], com n constante ou variável em local int.
+    // Esses operadores abortam se um operando não for número, então o
+    // elemento pode ser lido direto como int (AccessExpr.getInt), sem
+    // encaixotar; em n + a[i] o número à esquerda exclui a concatenação.
+    // O outro operando não tem efeitos, e a ordem dos erros não muda.
+    private boolean elementOp(BinaryExpr be) {
+        Expr l = be.getLeft();
+        Expr r = be.getRight();
+        switch (be.getOp()) {
+            case AddOp:
+                return simpleInt(l) && r instanceof AccessExpr;
+            case SubOp:
+            case MulOp:
+            case DivOp:
+            case ModOp:
+            case PowerOp:
+            case LowerThanOp:
+            case LowerEqualOp:
+            case GreaterThanOp:
+            case GreaterEqualOp:
+                return (l instanceof AccessExpr && simpleInt(r)) || (simpleInt(l) && r instanceof AccessExpr);
+            default:
+                return false;
+        }
+    }
+
+    private boolean simpleInt(Expr expr) {
+        if (expr instanceof ConstExpr)
+            return ((ConstExpr) expr).getValue() instanceof NumberValue;
+
+        return expr instanceof Variable && ints[((Variable) expr).getSlot()];
+    }
+
+    private void intOperands(BinaryExpr be) {
+        intOperand(be.getLeft(), be.getLine());
+        intOperand(be.getRight(), be.getLine());
+    }
+
+    private void intOperand(Expr expr, int line) {
+        if (expr instanceof AccessExpr)
+            intElement((AccessExpr) expr, line);
+        else
+            intExpr(expr);
+    }
+
+    // int do elemento na pilha; aborta na linha dada se não for número.
+    private void intElement(AccessExpr ae, int line) {
+        constant(ae, "interpreter/expr/AccessExpr");
+        expr(ae.getBase());
+        expr(ae.getIndex());
+        code.iconst(line);
+        code.invokevirtual("interpreter/expr/AccessExpr", "getInt", "(" + VALUE + VALUE + "I)I");
+    }
+
+    // elementOp fora de uma condição: resultado encaixotado.
+    private void elementBinary(BinaryExpr be) {
+        int opcode = negated(be.getOp());
+        intOperands(be);
+        if (opcode == 0) {
+            intOp(be.getOp());
+            box();
+            return;
+        }
+
+        int no = code.label();
+        int end = code.label();
+        code.jump(opcode, no);
+        code.iconst(1);
+        code.jump(Code.GOTO, end);
+        code.mark(no);
+        code.iconst(0);
+        code.mark(end);
+        code.invokestatic(BOOLEAN, "of", "(Z)L" + BOOLEAN + ";");
+    }
+
+    // Operação int sobre os dois ints do topo da pilha. Os operadores de
+    // AssignCommand.Op têm os mesmos nomes dos de BinaryExpr.Op.
+    private void intOp(BinaryExpr.Op op) {
+        switch (op) {
+            case AddOp:
+                code.op(Code.IADD, -1);
+                break;
+            case SubOp:
+                code.op(Code.ISUB, -1);
+                break;
+            case MulOp:
+                code.op(Code.IMUL, -1);
+                break;
+            case DivOp:
+                code.op(Code.IDIV, -1);
+                break;
+            case ModOp:
+                code.op(Code.IREM, -1);
+                break;
+            default:
+                code.invokestatic(SUPPORT, "power", "(II)I");
+                break;
+        }
+    }
+
+    private static boolean isInt(TypedBinaryExpr be) {
+        return be.getLeftType() == NumberValue.class && be.getRightType() == NumberValue.class;
+    }
+
+    private static boolean isInt(TypedAssignCommand ac) {
+        return ac.getLeftType() == NumberValue.class && ac.getRightType() == NumberValue.class;
+    }
+
+    private static boolean arithmetic(BinaryExpr be) {
+        if (!isInt((TypedBinaryExpr) be))
+            return false;
+
+        switch (be.getOp()) {
+            case AddOp:
+            case SubOp:
+            case MulOp:
+            case DivOp:
+            case ModOp:
+            case PowerOp:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // Salto que sai quando a comparação int é falsa; 0 se não for uma.
+    private static int negated(BinaryExpr.Op op) {
+        switch (op) {
+            case EqualOp:
+                return Code.IF_ICMPNE;
+            case NotEqualOp:
+                return Code.IF_ICMPEQ;
+            case LowerThanOp:
+                return Code.IF_ICMPGE;
+            case LowerEqualOp:
+                return Code.IF_ICMPGT;
+            case GreaterThanOp:
+                return Code.IF_ICMPLE;
+            case GreaterEqualOp:
+                return Code.IF_ICMPLT;
+            default:
+                return 0;
+        }
+    }
+
+    private void binary(BinaryExpr be) {
+        BinaryExpr.Op op = be.getOp();
+        if (op == BinaryExpr.Op.AndOp || op == BinaryExpr.Op.OrOp) {
+            // && e || só avaliam a direita quando ela decide o resultado
+            int right = code.label();
+            int end = code.label();
+            code.iconst(be.getLine());
+            expr(be.getLeft());
+            code.invokestatic(BINARY, "truth", "(I" + VALUE + ")Z");
+            code.jump(op == BinaryExpr.Op.AndOp ? Code.IFNE : Code.IFEQ, right);
+            code.getstatic(BOOLEAN, op == BinaryExpr.Op.AndOp ? "FALSE" : "TRUE", "L" + BOOLEAN + ";");
+            code.jump(Code.GOTO, end);
+            code.mark(right);
+            code.iconst(be.getLine());
+            expr(be.getRight());
+            code.invokestatic(BINARY, "truth", "(I" + VALUE + ")Z");
+            code.invokestatic(BOOLEAN, "of", "(Z)L" + BOOLEAN + ";");
+            code.mark(end);
+            return;
+        }
+
+        code.iconst(be.getLine());
+        expr(be.getLeft());
+        expr(be.getRight());
+        code.invokestatic(BINARY, BINARY_OPS[op.ordinal()], OP);
+    }
+
+    // k[i], convertido para o tipo esperado.
+    private void constant(Object value, String type) {
+        Integer index = constantIndex.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndex.put(value, index);
+        }
+
+        code.aload(K_LOCAL);
+        code.iconst(index);
+        code.op(Code.AALOAD, -1);
+        code.checkcast(type);
+    }
+
+    // Variáveis: locais -> contexto.
+    private void spill() {
+        for (int v = 0; v < vars; v++)
+            spill(v);
+    }
+
+    // Só as variáveis que o nó executado pela árvore pode ler.
+    private void spill(Effects e) {
+        if (!e.known())
+            fullSpills++;
+
+        for (int v = 0; v < vars; v++)
+            if (e.readsSlot(v))
+                spill(v);
+    }
+
+    private void spill(int v) {
+        code.aload(CTX_LOCAL);
+        code.iconst(v);
+        load(v);
+        code.invokevirtual(CTX, "write", "(I" + VALUE + ")V");
+    }
+
+    // Variáveis: contexto -> locais.
+    private void reload() {
+        for (int v = 0; v < vars; v++)
+            reload(v);
+    }
+
+    // Só as variáveis que o nó executado pela árvore pode atribuir.
+    private void reload(Effects e) {
+        for (int v = 0; v < vars; v++)
+            if (e.assignsSlot(v))
+                reload(v);
+    }
+
+    private void reload(int v) {
+        code.aload(CTX_LOCAL);
+        code.iconst(v);
+        code.invokevirtual(CTX, "read", "(I)" + VALUE);
+        if (ints[v]) {
+            code.invokestatic(SUPPORT, "intOf", "(" + VALUE + ")I");
+            code.istore(FIRST_VAR + v);
+        } else {
+            code.astore(FIRST_VAR + v);
+        }
+    }
+
+}
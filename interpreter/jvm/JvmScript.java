@@ -0,0 +1,43 @@
+package interpreter.jvm;
+
+import java.lang.invoke.MethodHandle;
+
+import interpreter.util.ExecutionContext;
+
+// Script compilado para uma classe da JVM, pronto para executar.
+public class JvmScript {
+
+    private MethodHandle run;
+    private Object[] constants;
+    private byte[] bytes;
+    private int fullSpills;
+
+    JvmScript(MethodHandle run, Object[] constants, byte[] bytes, int fullSpills) {
+        this.run = run;
+        this.constants = constants;
+        this.bytes = bytes;
+        this.fullSpills = fullSpills;
+    }
+
+    // Tamanho do .class gerado.
+    public int size() {
+        return bytes.length;
+    }
+
+    // Nós executados pela árvore que o Effects não conhece: antes e
+    // depois de cada um, todas as variáveis passam pelo contexto.
+    public int fullSpills() {
+        return fullSpills;
+    }
+
+    public void run(ExecutionContext ctx) {
+        try {
+            run.invokeExact(ctx, constants);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package interpreter.jvm;
+
+import interpreter.util.ExecutionContext;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Rotinas chamadas pelo código gerado; públicas porque a classe gerada
+// é uma classe oculta e só enxerga membros públicos.
+public class JvmSupport {
+
+    private JvmSupport() {
+    }
+
+    public static boolean test(Value<?> v) {
+        return v != null && v.eval();
+    }
+
+    public static boolean isInt(Value<?> v) {
+        return v instanceof NumberValue;
+    }
+
+    // Valor inicial de uma variável mantida em local int; antes da primeira
+    // atribuição o contexto tem null e o local fica 0.
+    public static int intOf(Value<?> v) {
+        return v instanceof NumberValue ? ((NumberValue) v).intValue() : 0;
+    }
+
+    public static int power(int base, int exp) {
+        return (int) Math.pow(base, exp);
+    }
+
+    public static void print(ExecutionContext ctx, Value<?> v, boolean newline) {
+        ctx.out().print(v == null ? "null" : v.toString());
+        if (newline)
+            ctx.out().println();
+    }
+
+}
@@ -0,0 +1,96 @@
+package interpreter.opt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.value.Value;
+
+// Remove o código que nunca executa: if com condição constante fica só
+// com o ramo escolhido, while e for com condição falsa somem (o for
+// mantém a inicialização) e blocos vazios ou aninhados são achatados.
+// Deve rodar depois de ConstantFolding, que produz as condições
+// constantes.
+public class BranchElimination extends TreeRewriter implements Pass {
+
+    @Override
+    public String name() {
+        return "branches";
+    }
+
+    @Override
+    public Command run(Command cmd) {
+        return command(cmd);
+    }
+
+    @Override
+    protected Command blocks(BlocksCommand bc) {
+        List<Command> cmds = bc.getCommands();
+        List<Command> res = new ArrayList<Command>(cmds.size());
+        boolean changed = false;
+        for (Command c : cmds) {
+            Command n = command(c);
+            if (n instanceof BlocksCommand) {
+                // blocos não criam escopo; o bloco interno é copiado no externo
+                res.addAll(((BlocksCommand) n).getCommands());
+                changed = true;
+            } else {
+                res.add(n);
+                changed |= n != c;
+            }
+        }
+
+        return changed ? new BlocksCommand(bc.getLine(), res) : bc;
+    }
+
+    @Override
+    protected Command conditional(IfCommand ic) {
+        Command c = super.conditional(ic);
+        if (!(c instanceof IfCommand))
+            return c;
+
+        ic = (IfCommand) c;
+        if (!(ic.getExpr() instanceof ConstExpr))
+            return ic;
+
+        if (truth(ic.getExpr()))
+            return ic.getCommandsIf();
+
+        return ic.getCommandsElse() != null ? ic.getCommandsElse() : empty(ic);
+    }
+
+    @Override
+    protected Command loop(WhileCommand wc) {
+        if (wc.getExpr() instanceof ConstExpr && !truth(wc.getExpr()))
+            return empty(wc);
+
+        return super.loop(wc);
+    }
+
+    @Override
+    protected Command loop(ForCommand fc) {
+        if (!(fc.getExpr() instanceof ConstExpr) || truth(fc.getExpr()))
+            return super.loop(fc);
+
+        List<Command> init = new ArrayList<Command>();
+        init.addAll(commands(fc.getLeftDecl()));
+        init.addAll(commands(fc.getLeftAssign()));
+        return new BlocksCommand(fc.getLine(), init);
+    }
+
+    private static boolean truth(Expr expr) {
+        Value<?> v = ((ConstExpr) expr).getValue();
+        return v != null && v.eval();
+    }
+
+    private static Command empty(Command cmd) {
+        return new BlocksCommand(cmd.getLine(), new ArrayList<Command>());
+    }
+
+}
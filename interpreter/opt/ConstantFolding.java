@@ -0,0 +1,190 @@
+package interpreter.opt;
+
+import interpreter.command.Command;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CastExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.UnaryExpr;
+import interpreter.util.InterpreterException;
+import interpreter.value.BooleanValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Avalia em tempo de compilação as subárvores cujos operandos são
+// constantes e simplifica as identidades aritméticas (x + 0, x * 1, ...).
+// A avaliação usa os mesmos métodos estáticos da árvore; se ela falha
+// (tipos errados, divisão por zero), o nó fica como está e o erro
+// acontece na execução, na mesma linha de antes.
+public class ConstantFolding extends TreeRewriter implements Pass {
+
+    @Override
+    public String name() {
+        return "fold";
+    }
+
+    @Override
+    public Command run(Command cmd) {
+        return command(cmd);
+    }
+
+    @Override
+    protected Expr binary(BinaryExpr be) {
+        Expr e = super.binary(be);
+        if (!(e instanceof BinaryExpr))
+            return e;
+
+        be = (BinaryExpr) e;
+        Expr l = be.getLeft();
+        Expr r = be.getRight();
+        int line = be.getLine();
+
+        if (l instanceof ConstExpr && r instanceof ConstExpr) {
+            Value<?> v = fold(line, be.getOp(), value(l), value(r));
+            return v == FAILED ? be : constant(line, v);
+        }
+
+        // false && x e true || x não avaliam x.
+        if (l instanceof ConstExpr && (be.getOp() == BinaryExpr.Op.AndOp || be.getOp() == BinaryExpr.Op.OrOp)) {
+            Value<?> lv = value(l);
+            if (lv instanceof NumberValue || lv instanceof BooleanValue) {
+                boolean b = BinaryExpr.truth(line, lv);
+                if (be.getOp() == BinaryExpr.Op.AndOp && !b)
+                    return constant(line, BooleanValue.FALSE);
+                if (be.getOp() == BinaryExpr.Op.OrOp && b)
+                    return constant(line, BooleanValue.TRUE);
+            }
+        }
+
+        return identity(be);
+    }
+
+    @Override
+    protected Expr unary(UnaryExpr ue) {
+        Expr e = super.unary(ue);
+        if (!(e instanceof UnaryExpr))
+            return e;
+
+        // Só os operadores puros; read tem efeito colateral.
+        ue = (UnaryExpr) e;
+        if (!(ue.getExpr() instanceof ConstExpr)
+                || (ue.getOp() != UnaryExpr.Op.NotOp && ue.getOp() != UnaryExpr.Op.NegOp))
+            return ue;
+
+        try {
+            return constant(ue.getLine(), UnaryExpr.evaluate(null, ue.getLine(), ue.getOp(), value(ue.getExpr())));
+        } catch (InterpreterException ex) {
+            return ue;
+        }
+    }
+
+    @Override
+    protected Expr cast(CastExpr ce) {
+        Expr e = super.cast(ce);
+        if (!(e instanceof CastExpr))
+            return e;
+
+        ce = (CastExpr) e;
+        if (!(ce.getExpr() instanceof ConstExpr))
+            return ce;
+
+        try {
+            return constant(ce.getLine(), CastExpr.evaluate(ce.getLine(), ce.getOp(), value(ce.getExpr())));
+        } catch (InterpreterException ex) {
+            return ce;
+        }
+    }
+
+    // x + 0, 0 + x, x - 0, x * 1, 1 * x, x / 1, x ** 1 viram x, mas só
+    // quando x certamente é um número: com texto, + concatena e os outros
+    // operadores abortam, e essa diferença tem que continuar visível.
+    private static Expr identity(BinaryExpr be) {
+        Expr l = be.getLeft();
+        Expr r = be.getRight();
+
+        switch (be.getOp()) {
+            case AddOp:
+                if (isInt(r, 0) && numeric(l))
+                    return l;
+                if (isInt(l, 0) && numeric(r))
+                    return r;
+                break;
+            case SubOp:
+                if (isInt(r, 0) && numeric(l))
+                    return l;
+                break;
+            case MulOp:
+                if (isInt(r, 1) && numeric(l))
+                    return l;
+                if (isInt(l, 1) && numeric(r))
+                    return r;
+                break;
+            case DivOp:
+            case PowerOp:
+                if (isInt(r, 1) && numeric(l))
+                    return l;
+                break;
+            default:
+                break;
+        }
+
+        return be;
+    }
+
+    // A expressão, se não abortar, produz um número?
+    private static boolean numeric(Expr expr) {
+        if (expr instanceof ConstExpr) {
+            return value(expr) instanceof NumberValue;
+        } else if (expr instanceof BinaryExpr) {
+            BinaryExpr be = (BinaryExpr) expr;
+            switch (be.getOp()) {
+                case SubOp:
+                case MulOp:
+                case DivOp:
+                case ModOp:
+                case PowerOp:
+                    return true;
+                case AddOp:
+                    return numeric(be.getLeft()) && numeric(be.getRight());
+                default:
+                    return false;
+            }
+        } else if (expr instanceof UnaryExpr) {
+            return ((UnaryExpr) expr).getOp() == UnaryExpr.Op.NegOp;
+        } else if (expr instanceof CastExpr) {
+            return ((CastExpr) expr).getOp() == CastExpr.Op.toInteger;
+        }
+
+        return false;
+    }
+
+    private static boolean isInt(Expr expr, int n) {
+        Value<?> v = expr instanceof ConstExpr ? value(expr) : null;
+        return v instanceof NumberValue && ((NumberValue) v).intValue() == n;
+    }
+
+    private static Value<?> value(Expr expr) {
+        return ((ConstExpr) expr).getValue();
+    }
+
+    private static final Value<?> FAILED = new TextValue("");
+
+    private static Value<?> fold(int line, BinaryExpr.Op op, Value<?> lvalue, Value<?> rvalue) {
+        try {
+            return BinaryExpr.evaluate(line, op, lvalue, rvalue);
+        } catch (InterpreterException | ArithmeticException ex) {
+            return FAILED;
+        }
+    }
+
+    // Texto concatenado pode apontar para um buffer compartilhado; a
+    // constante guarda uma cópia própria.
+    private static Expr constant(int line, Value<?> v) {
+        if (v instanceof TextValue)
+            v = new TextValue(((TextValue) v).value());
+
+        return new ConstExpr(line, v);
+    }
+
+}
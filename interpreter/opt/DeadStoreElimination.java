@@ -0,0 +1,161 @@
+package interpreter.opt;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.CountedForCommand;
+import interpreter.command.DeclarationType1Command;
+import interpreter.command.DeclarationType2Command;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.CastExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.util.SlotTable;
+
+// Remove atribuições 'x = e' cujo valor é sobrescrito antes de ser lido.
+// Os blocos são percorridos de trás para frente com o conjunto das
+// variáveis mortas (que serão atribuídas antes de qualquer leitura). No
+// fim do programa todas estão mortas; no fim do corpo de um laço,
+// nenhuma, porque a próxima volta pode ler qualquer uma.
+//
+// Só somem atribuições cujo lado direito não tem efeito nem pode abortar
+// (constantes, variáveis, conversões, !); as outras ficam.
+public class DeadStoreElimination implements Pass {
+
+    private SlotTable slots;
+
+    public DeadStoreElimination(SlotTable slots) {
+        this.slots = slots;
+    }
+
+    @Override
+    public String name() {
+        return "dse";
+    }
+
+    @Override
+    public Command run(Command cmd) {
+        Set<String> dead = new HashSet<String>();
+        for (int i = 0; i < slots.size(); i++)
+            dead.add(slots.name(i));
+
+        return command(cmd, dead);
+    }
+
+    // 'dead' entra com as variáveis mortas depois do comando e sai com as
+    // mortas antes dele.
+    private Command command(Command cmd, Set<String> dead) {
+        if (cmd instanceof BlocksCommand) {
+            List<Command> cmds = ((BlocksCommand) cmd).getCommands();
+            List<Command> res = new ArrayList<Command>(cmds.size());
+            boolean changed = false;
+            for (int i = cmds.size() - 1; i >= 0; i--) {
+                Command c = cmds.get(i);
+                Command n = command(c, dead);
+                changed |= n != c;
+                if (n != null)
+                    res.add(0, n);
+            }
+
+            return changed ? new BlocksCommand(cmd.getLine(), res) : cmd;
+        } else if (cmd instanceof AssignCommand) {
+            AssignCommand ac = (AssignCommand) cmd;
+            if (ac.getLhs() instanceof Variable && ac.getOp() == AssignCommand.Op.StdOp) {
+                String name = ((Variable) ac.getLhs()).getName();
+                if (dead.contains(name) && harmless(ac.getRhs()))
+                    return null;
+
+                dead.add(name);
+            }
+
+            return use(cmd, dead);
+        } else if (cmd instanceof DeclarationType1Command || cmd instanceof DeclarationType2Command) {
+            List<Variable> lhs = cmd instanceof DeclarationType1Command
+                ? ((DeclarationType1Command) cmd).getLhs() : ((DeclarationType2Command) cmd).getLhs();
+            for (Variable v : lhs)
+                dead.add(v.getName());
+
+            return use(cmd, dead);
+        } else if (cmd instanceof PrintCommand) {
+            return use(cmd, dead);
+        } else if (cmd instanceof IfCommand) {
+            IfCommand ic = (IfCommand) cmd;
+            Set<String> deadElse = new HashSet<String>(dead);
+            Command cmdsIf = command(ic.getCommandsIf(), dead);
+            Command cmdsElse = ic.getCommandsElse() == null ? null : command(ic.getCommandsElse(), deadElse);
+            dead.retainAll(deadElse);
+            use(ic.getExpr(), dead);
+
+            if (cmdsIf == null)
+                cmdsIf = new BlocksCommand(ic.getLine(), new ArrayList<Command>());
+            if (cmdsIf == ic.getCommandsIf() && cmdsElse == ic.getCommandsElse())
+                return ic;
+            return new IfCommand(ic.getLine(), ic.getExpr(), cmdsIf, cmdsElse);
+        } else if (cmd instanceof WhileCommand) {
+            WhileCommand wc = (WhileCommand) cmd;
+            Command cmds = body(wc.getCommands());
+            use(wc, dead);
+            return cmds == wc.getCommands() ? wc : new WhileCommand(wc.getLine(), wc.getExpr(), cmds);
+        } else if (cmd instanceof ForCommand) {
+            ForCommand fc = (ForCommand) cmd;
+            Command cmds = body(fc.getCommands());
+            use(fc, dead);
+            if (cmds == fc.getCommands())
+                return fc;
+
+            return CountedForCommand.create(fc.getLine(), fc.getLeftDecl(),
+                fc.getLeftAssign(), fc.getExpr(), fc.getRight(), cmds);
+        }
+
+        dead.clear();
+        return cmd;
+    }
+
+    // Corpo de laço: nada está morto no fim, a próxima volta pode ler.
+    private Command body(Command cmds) {
+        Command n = command(cmds, new HashSet<String>());
+        return n != null ? n : new BlocksCommand(cmds.getLine(), new ArrayList<Command>());
+    }
+
+    // O que o comando lê deixa de estar morto.
+    private Command use(Command cmd, Set<String> dead) {
+        Effects e = Effects.of(cmd);
+        if (e.unknown)
+            dead.clear();
+        else
+            dead.removeAll(e.reads);
+        return cmd;
+    }
+
+    private void use(Expr expr, Set<String> dead) {
+        Effects e = Effects.of(expr);
+        if (e.unknown)
+            dead.clear();
+        else
+            dead.removeAll(e.reads);
+    }
+
+    private static boolean harmless(Expr expr) {
+        if (expr == null || expr instanceof ConstExpr || expr instanceof Variable) {
+            return true;
+        } else if (expr instanceof CastExpr) {
+            return harmless(((CastExpr) expr).getExpr());
+        } else if (expr instanceof UnaryExpr) {
+            UnaryExpr ue = (UnaryExpr) expr;
+            return ue.getOp() == UnaryExpr.Op.NotOp && harmless(ue.getExpr());
+        }
+
+        return false;
+    }
+
+}
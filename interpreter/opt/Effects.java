@@ -0,0 +1,167 @@
+package interpreter.opt;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DeclarationCommand;
+import interpreter.command.DeclarationType1Command;
+import interpreter.command.DeclarationType2Command;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.ArrayExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CastExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.InvariantExpr;
+import interpreter.expr.MapExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+
+// O que um trecho de código lê e escreve: variáveis lidas, variáveis
+// atribuídas e se há escrita em elementos de arrays/mapas. Um nó que a
+// análise não conhece marca 'unknown', e quem usa o resultado deve
+// supor o pior.
+public class Effects {
+
+    final Set<String> reads = new HashSet<String>();
+    final Set<String> assigns = new HashSet<String>();
+    boolean stores;
+    boolean unknown;
+
+    // os mesmos conjuntos por slot do frame
+    private final BitSet readSlots = new BitSet();
+    private final BitSet assignSlots = new BitSet();
+
+    public static Effects of(Command cmd) {
+        Effects e = new Effects();
+        e.command(cmd);
+        return e;
+    }
+
+    public static Effects of(Expr expr) {
+        Effects e = new Effects();
+        e.expr(expr);
+        return e;
+    }
+
+    // Todos os nós do trecho são conhecidos pela análise?
+    public boolean known() {
+        return !unknown;
+    }
+
+    // O trecho pode ler o slot? Com nó desconhecido, sempre.
+    public boolean readsSlot(int slot) {
+        return unknown || readSlots.get(slot);
+    }
+
+    public boolean assignsSlot(int slot) {
+        return unknown || assignSlots.get(slot);
+    }
+
+    private void read(Variable v) {
+        reads.add(v.getName());
+        if (v.getSlot() >= 0)
+            readSlots.set(v.getSlot());
+    }
+
+    private void assign(Variable v) {
+        assigns.add(v.getName());
+        if (v.getSlot() >= 0)
+            assignSlots.set(v.getSlot());
+    }
+
+    void command(Command cmd) {
+        if (cmd == null || cmd instanceof PrintCommand) {
+            if (cmd != null)
+                expr(((PrintCommand) cmd).getExpr());
+        } else if (cmd instanceof BlocksCommand) {
+            for (Command c : ((BlocksCommand) cmd).getCommands())
+                command(c);
+        } else if (cmd instanceof AssignCommand) {
+            AssignCommand ac = (AssignCommand) cmd;
+            if (ac.getLhs() instanceof Variable) {
+                Variable v = (Variable) ac.getLhs();
+                assign(v);
+                if (ac.getOp() != AssignCommand.Op.StdOp)
+                    read(v);
+            } else if (ac.getLhs() instanceof AccessExpr) {
+                stores = true;
+                expr(ac.getLhs());
+            } else {
+                unknown = true;
+            }
+            expr(ac.getRhs());
+        } else if (cmd instanceof DeclarationType1Command || cmd instanceof DeclarationType2Command) {
+            for (Variable v : cmd instanceof DeclarationType1Command
+                    ? ((DeclarationType1Command) cmd).getLhs() : ((DeclarationType2Command) cmd).getLhs())
+                assign(v);
+            for (Expr e : ((DeclarationCommand) cmd).getRhs())
+                expr(e);
+        } else if (cmd instanceof IfCommand) {
+            IfCommand ic = (IfCommand) cmd;
+            expr(ic.getExpr());
+            command(ic.getCommandsIf());
+            command(ic.getCommandsElse());
+        } else if (cmd instanceof WhileCommand) {
+            WhileCommand wc = (WhileCommand) cmd;
+            expr(wc.getExpr());
+            command(wc.getCommands());
+        } else if (cmd instanceof ForCommand) {
+            ForCommand fc = (ForCommand) cmd;
+            for (Command c : fc.getLeftDecl())
+                command(c);
+            for (Command c : fc.getLeftAssign())
+                command(c);
+            expr(fc.getExpr());
+            for (Command c : fc.getRight())
+                command(c);
+            command(fc.getCommands());
+        } else {
+            unknown = true;
+        }
+    }
+
+    void expr(Expr expr) {
+        if (expr == null || expr instanceof ConstExpr) {
+            return;
+        } else if (expr instanceof Variable) {
+            read((Variable) expr);
+        } else if (expr instanceof BinaryExpr) {
+            BinaryExpr be = (BinaryExpr) expr;
+            expr(be.getLeft());
+            expr(be.getRight());
+        } else if (expr instanceof UnaryExpr) {
+            expr(((UnaryExpr) expr).getExpr());
+        } else if (expr instanceof CastExpr) {
+            expr(((CastExpr) expr).getExpr());
+        } else if (expr instanceof AccessExpr) {
+            AccessExpr ae = (AccessExpr) expr;
+            expr(ae.getBase());
+            expr(ae.getIndex());
+        } else if (expr instanceof InvariantExpr) {
+            InvariantExpr ie = (InvariantExpr) expr;
+            expr(ie.getTemp());
+            expr(ie.getExpr());
+            // a primeira avaliação grava a temporária no slot
+            if (ie.getTemp().getSlot() >= 0)
+                assignSlots.set(ie.getTemp().getSlot());
+        } else if (expr instanceof ArrayExpr) {
+            for (Expr e : ((ArrayExpr) expr).getItems())
+                expr(e);
+        } else if (expr instanceof MapExpr) {
+            for (Expr e : ((MapExpr) expr).getValues())
+                expr(e);
+        } else {
+            unknown = true;
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package interpreter.opt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.CountedForCommand;
+import interpreter.command.ForCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CastExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.InvariantExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.util.SlotTable;
+
+// Tira dos laços as subexpressões que não mudam entre as voltas. Uma
+// expressão é invariante se só lê variáveis que o laço não atribui e, no
+// caso de acesso a elementos (a[i], size, in), se o laço não escreve em
+// nenhum elemento. read e nós desconhecidos nunca são invariantes.
+//
+// A expressão não é avaliada antes do laço: ela vira um InvariantExpr,
+// que guarda o valor na primeira avaliação, e o laço passa a ser
+// precedido por 'temp = UNSET'. Assim a ordem dos efeitos e dos erros
+// continua a mesma, mesmo quando o laço não executa nenhuma volta ou a
+// expressão está dentro de um if.
+public class LoopInvariantMotion extends TreeRewriter implements Pass {
+
+    private SlotTable slots;
+    private int temps;
+
+    public LoopInvariantMotion(SlotTable slots) {
+        this.slots = slots;
+    }
+
+    @Override
+    public String name() {
+        return "licm";
+    }
+
+    @Override
+    public Command run(Command cmd) {
+        return command(cmd);
+    }
+
+    // Os laços internos são tratados primeiro; o que eles já guardaram
+    // pode subir de novo para o laço externo.
+    @Override
+    protected Command loop(WhileCommand wc) {
+        Command c = super.loop(wc);
+        if (!(c instanceof WhileCommand))
+            return c;
+
+        wc = (WhileCommand) c;
+        Hoister h = new Hoister(Effects.of(wc));
+        if (h.effects.unknown)
+            return wc;
+
+        Expr e = h.expr(wc.getExpr());
+        Command cmds = h.command(wc.getCommands());
+        return h.wrap(wc, new WhileCommand(wc.getLine(), e, cmds));
+    }
+
+    // Só a condição, o incremento e o corpo; a inicialização roda uma vez.
+    @Override
+    protected Command loop(ForCommand fc) {
+        Command c = super.loop(fc);
+        if (!(c instanceof ForCommand))
+            return c;
+
+        fc = (ForCommand) c;
+        Hoister h = new Hoister(Effects.of(fc));
+        if (h.effects.unknown || fc.getExpr() == null)
+            return fc;
+
+        Expr e = h.expr(fc.getExpr());
+        ArrayList<AssignCommand> right = h.commands(fc.getRight());
+        Command cmds = h.command(fc.getCommands());
+        return h.wrap(fc, CountedForCommand.create(fc.getLine(), fc.getLeftDecl(), fc.getLeftAssign(),
+            e, right, cmds));
+    }
+
+    private class Hoister extends TreeRewriter {
+
+        private Effects effects;
+        private List<Command> resets = new ArrayList<Command>();
+
+        Hoister(Effects effects) {
+            this.effects = effects;
+        }
+
+        @Override
+        public Expr expr(Expr expr) {
+            if (!worth(expr) || !invariant(expr))
+                return super.expr(expr);
+
+            Variable temp = new Variable(expr.getLine(), "#inv" + temps++);
+            temp.resolve(slots.slot(temp.getName()));
+            resets.add(new AssignCommand(expr.getLine(), temp, AssignCommand.Op.StdOp,
+                new ConstExpr(expr.getLine(), InvariantExpr.UNSET)));
+            return new InvariantExpr(expr.getLine(), expr, temp);
+        }
+
+        // Laço original, se nada foi tirado; senão, as temporárias
+        // zeradas seguidas do laço novo.
+        Command wrap(Command original, Command loop) {
+            if (resets.isEmpty())
+                return original;
+
+            List<Command> cmds = new ArrayList<Command>(resets);
+            cmds.add(loop);
+            return new BlocksCommand(original.getLine(), cmds);
+        }
+
+        private boolean invariant(Expr expr) {
+            if (expr instanceof ConstExpr) {
+                return true;
+            } else if (expr instanceof Variable) {
+                return !effects.assigns.contains(((Variable) expr).getName());
+            } else if (expr instanceof BinaryExpr) {
+                BinaryExpr be = (BinaryExpr) expr;
+                switch (be.getOp()) {
+                    case ContainsOp:
+                    case NotContainsOp:
+                        // 'in' lê os elementos de arranjos e mapas
+                        if (effects.stores)
+                            return false;
+                        break;
+                    default:
+                        break;
+                }
+                return invariant(be.getLeft()) && invariant(be.getRight());
+            } else if (expr instanceof UnaryExpr) {
+                UnaryExpr ue = (UnaryExpr) expr;
+                switch (ue.getOp()) {
+                    case NotOp:
+                    case NegOp:
+                        return invariant(ue.getExpr());
+                    case SizeOp:
+                    case EmptyOp:
+                        return !effects.stores && invariant(ue.getExpr());
+                    default:
+                        return false;
+                }
+            } else if (expr instanceof CastExpr) {
+                return invariant(((CastExpr) expr).getExpr());
+            } else if (expr instanceof AccessExpr) {
+                AccessExpr ae = (AccessExpr) expr;
+                return !effects.stores && invariant(ae.getBase()) && invariant(ae.getIndex());
+            } else if (expr instanceof InvariantExpr) {
+                // a temporária é zerada dentro deste laço, mas o valor
+                // só depende da expressão guardada
+                return invariant(((InvariantExpr) expr).getExpr());
+            }
+
+            return false;
+        }
+
+        // Constantes e variáveis já custam uma leitura.
+        private boolean worth(Expr expr) {
+            return expr instanceof BinaryExpr || expr instanceof UnaryExpr || expr instanceof CastExpr
+                || expr instanceof AccessExpr || expr instanceof InvariantExpr;
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+package interpreter.opt;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DeclarationCommand;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.ArrayExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CastExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.InvariantExpr;
+import interpreter.expr.MapExpr;
+import interpreter.expr.UnaryExpr;
+
+// Conta os nós da árvore, para o relatório dos passes.
+public class NodeCounter {
+
+    private NodeCounter() {
+    }
+
+    public static int count(Command cmd) {
+        if (cmd == null) {
+            return 0;
+        } else if (cmd instanceof BlocksCommand) {
+            int n = 1;
+            for (Command c : ((BlocksCommand) cmd).getCommands())
+                n += count(c);
+            return n;
+        } else if (cmd instanceof AssignCommand) {
+            AssignCommand ac = (AssignCommand) cmd;
+            return 1 + count(ac.getLhs()) + count(ac.getRhs());
+        } else if (cmd instanceof DeclarationCommand) {
+            int n = 1;
+            for (Expr e : ((DeclarationCommand) cmd).getRhs())
+                n += count(e);
+            return n;
+        } else if (cmd instanceof PrintCommand) {
+            return 1 + count(((PrintCommand) cmd).getExpr());
+        } else if (cmd instanceof IfCommand) {
+            IfCommand ic = (IfCommand) cmd;
+            return 1 + count(ic.getExpr()) + count(ic.getCommandsIf()) + count(ic.getCommandsElse());
+        } else if (cmd instanceof WhileCommand) {
+            WhileCommand wc = (WhileCommand) cmd;
+            return 1 + count(wc.getExpr()) + count(wc.getCommands());
+        } else if (cmd instanceof ForCommand) {
+            ForCommand fc = (ForCommand) cmd;
+            int n = 1 + count(fc.getExpr()) + count(fc.getCommands());
+            for (Command c : fc.getLeftDecl())
+                n += count(c);
+            for (Command c : fc.getLeftAssign())
+                n += count(c);
+            for (Command c : fc.getRight())
+                n += count(c);
+            return n;
+        }
+
+        return 1;
+    }
+
+    public static int count(Expr expr) {
+        if (expr == null) {
+            return 0;
+        } else if (expr instanceof BinaryExpr) {
+            BinaryExpr be = (BinaryExpr) expr;
+            return 1 + count(be.getLeft()) + count(be.getRight());
+        } else if (expr instanceof UnaryExpr) {
+            return 1 + count(((UnaryExpr) expr).getExpr());
+        } else if (expr instanceof CastExpr) {
+            return 1 + count(((CastExpr) expr).getExpr());
+        } else if (expr instanceof AccessExpr) {
+            AccessExpr ae = (AccessExpr) expr;
+            return 1 + count(ae.getBase()) + count(ae.getIndex());
+        } else if (expr instanceof InvariantExpr) {
+            return 1 + count(((InvariantExpr) expr).getExpr());
+        } else if (expr instanceof ArrayExpr) {
+            int n = 1;
+            for (Expr e : ((ArrayExpr) expr).getItems())
+                n += count(e);
+            return n;
+        } else if (expr instanceof MapExpr) {
+            int n = 1;
+            for (Expr e : ((MapExpr) expr).getValues())
+                n += count(e);
+            return n;
+        }
+
+        return 1;
+    }
+
+}
@@ -0,0 +1,51 @@
+package interpreter.opt;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import interpreter.command.Command;
+import interpreter.util.SlotTable;
+
+// Aplica os passes em sequência. Com log, escreve quantos nós cada passe
+// removeu.
+public class Optimizer {
+
+    private Optimizer() {
+    }
+
+    // Nível 1: dobra de constantes e ramos mortos. Nível 2: também tira
+    // invariantes dos laços, remove atribuições mortas e escolhe os nós
+    // tipados; o SlotTable tem que ser o do programa, porque os passes
+    // criam variáveis temporárias.
+    public static List<Pass> passes(int level, SlotTable slots) {
+        List<Pass> passes = new ArrayList<Pass>();
+        if (level >= 1) {
+            passes.add(new ConstantFolding());
+            passes.add(new BranchElimination());
+        }
+        if (level >= 2) {
+            passes.add(new LoopInvariantMotion(slots));
+            passes.add(new DeadStoreElimination(slots));
+            passes.add(new TypeInference(slots));
+        }
+
+        return passes;
+    }
+
+    public static Command optimize(Command cmd, List<Pass> passes, PrintStream log) {
+        int before = NodeCounter.count(cmd);
+        for (Pass p : passes) {
+            cmd = p.run(cmd);
+
+            if (log != null) {
+                int after = NodeCounter.count(cmd);
+                log.printf("[opt] %s: %d -> %d nodes\n", p.name(), before, after);
+                before = after;
+            }
+        }
+
+        return cmd;
+    }
+
+}
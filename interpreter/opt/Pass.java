@@ -0,0 +1,13 @@
+package interpreter.opt;
+
+import interpreter.command.Command;
+
+// Um passe de otimização sobre a árvore. Devolve a árvore nova (ou a
+// mesma, se nada mudou); nunca altera os nós recebidos.
+public interface Pass {
+
+    String name();
+
+    Command run(Command cmd);
+
+}
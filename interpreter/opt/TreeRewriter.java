@@ -0,0 +1,214 @@
+package interpreter.opt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.CountedForCommand;
+import interpreter.command.DeclarationCommand;
+import interpreter.command.DeclarationType1Command;
+import interpreter.command.DeclarationType2Command;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CastExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.InvariantExpr;
+import interpreter.expr.SetExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.VarCompareConst;
+
+// Percorre a árvore e a reconstrói de baixo para cima. Cada método
+// recebe um nó, reescreve os filhos e só cria um nó novo se algum filho
+// mudou; os passes sobrescrevem os métodos dos nós que lhes interessam.
+// Nós desconhecidos são devolvidos como estão.
+public abstract class TreeRewriter {
+
+    public Command command(Command cmd) {
+        if (cmd == null)
+            return null;
+        else if (cmd instanceof BlocksCommand)
+            return blocks((BlocksCommand) cmd);
+        else if (cmd instanceof AssignCommand)
+            return assign((AssignCommand) cmd);
+        else if (cmd instanceof DeclarationType1Command)
+            return declaration((DeclarationType1Command) cmd);
+        else if (cmd instanceof DeclarationType2Command)
+            return declaration((DeclarationType2Command) cmd);
+        else if (cmd instanceof PrintCommand)
+            return print((PrintCommand) cmd);
+        else if (cmd instanceof IfCommand)
+            return conditional((IfCommand) cmd);
+        else if (cmd instanceof WhileCommand)
+            return loop((WhileCommand) cmd);
+        else if (cmd instanceof ForCommand)
+            return loop((ForCommand) cmd);
+
+        return cmd;
+    }
+
+    public Expr expr(Expr expr) {
+        if (expr == null)
+            return null;
+        else if (expr instanceof BinaryExpr)
+            return binary((BinaryExpr) expr);
+        else if (expr instanceof UnaryExpr)
+            return unary((UnaryExpr) expr);
+        else if (expr instanceof CastExpr)
+            return cast((CastExpr) expr);
+        else if (expr instanceof AccessExpr)
+            return access((AccessExpr) expr);
+        else if (expr instanceof InvariantExpr)
+            return invariant((InvariantExpr) expr);
+
+        return expr;
+    }
+
+    protected Command blocks(BlocksCommand bc) {
+        List<Command> cmds = commands(bc.getCommands());
+        return cmds == bc.getCommands() ? bc : new BlocksCommand(bc.getLine(), cmds);
+    }
+
+    protected Command assign(AssignCommand ac) {
+        SetExpr lhs = target(ac.getLhs());
+        Expr rhs = expr(ac.getRhs());
+        if (lhs == ac.getLhs() && rhs == ac.getRhs())
+            return ac;
+
+        return AssignCommand.create(ac.getLine(), lhs, ac.getOp(), rhs);
+    }
+
+    protected Command declaration(DeclarationType1Command dc) {
+        ArrayList<Expr> rhs = exprs(dc.getRhs());
+        return rhs == dc.getRhs() ? dc : new DeclarationType1Command(dc.getLine(), dc.getLhs(), rhs);
+    }
+
+    protected Command declaration(DeclarationType2Command dc) {
+        ArrayList<Expr> rhs = exprs(dc.getRhs());
+        return rhs == dc.getRhs() ? dc : new DeclarationType2Command(dc.getLine(), dc.getLhs(), rhs);
+    }
+
+    protected Command print(PrintCommand pc) {
+        Expr e = expr(pc.getExpr());
+        return e == pc.getExpr() ? pc : new PrintCommand(pc.getLine(), pc.isNewline(), e);
+    }
+
+    protected Command conditional(IfCommand ic) {
+        Expr e = expr(ic.getExpr());
+        Command cmdsIf = command(ic.getCommandsIf());
+        Command cmdsElse = command(ic.getCommandsElse());
+        if (e == ic.getExpr() && cmdsIf == ic.getCommandsIf() && cmdsElse == ic.getCommandsElse())
+            return ic;
+
+        return new IfCommand(ic.getLine(), e, cmdsIf, cmdsElse);
+    }
+
+    protected Command loop(WhileCommand wc) {
+        Expr e = expr(wc.getExpr());
+        Command cmds = command(wc.getCommands());
+        if (e == wc.getExpr() && cmds == wc.getCommands())
+            return wc;
+
+        return new WhileCommand(wc.getLine(), e, cmds);
+    }
+
+    // O for é recriado por CountedForCommand.create, que volta a decidir
+    // se a forma contada se aplica.
+    protected Command loop(ForCommand fc) {
+        ArrayList<DeclarationCommand> decl = commands(fc.getLeftDecl());
+        ArrayList<AssignCommand> assign = commands(fc.getLeftAssign());
+        Expr e = expr(fc.getExpr());
+        ArrayList<AssignCommand> right = commands(fc.getRight());
+        Command cmds = command(fc.getCommands());
+        if (decl == fc.getLeftDecl() && assign == fc.getLeftAssign() && e == fc.getExpr()
+                && right == fc.getRight() && cmds == fc.getCommands())
+            return fc;
+
+        return CountedForCommand.create(fc.getLine(), decl, assign, e, right, cmds);
+    }
+
+    protected Expr binary(BinaryExpr be) {
+        Expr l = expr(be.getLeft());
+        Expr r = expr(be.getRight());
+        if (l == be.getLeft() && r == be.getRight())
+            return be;
+
+        return VarCompareConst.create(be.getLine(), l, be.getOp(), r);
+    }
+
+    protected Expr unary(UnaryExpr ue) {
+        Expr e = expr(ue.getExpr());
+        return e == ue.getExpr() ? ue : new UnaryExpr(ue.getLine(), e, ue.getOp());
+    }
+
+    protected Expr cast(CastExpr ce) {
+        Expr e = expr(ce.getExpr());
+        return e == ce.getExpr() ? ce : new CastExpr(ce.getLine(), e, ce.getOp());
+    }
+
+    protected Expr access(AccessExpr ae) {
+        SetExpr base = target(ae.getBase());
+        Expr index = expr(ae.getIndex());
+        if (base == ae.getBase() && index == ae.getIndex())
+            return ae;
+
+        return AccessExpr.create(ae.getLine(), base, index);
+    }
+
+    protected Expr invariant(InvariantExpr ie) {
+        Expr e = expr(ie.getExpr());
+        return e == ie.getExpr() ? ie : new InvariantExpr(ie.getLine(), e, ie.getTemp());
+    }
+
+    // Lado esquerdo de atribuição: só os índices são reescritos, o alvo
+    // continua sendo um SetExpr.
+    protected SetExpr target(SetExpr lhs) {
+        if (!(lhs instanceof AccessExpr))
+            return lhs;
+
+        AccessExpr ae = (AccessExpr) lhs;
+        SetExpr base = target(ae.getBase());
+        Expr index = expr(ae.getIndex());
+        if (base == ae.getBase() && index == ae.getIndex())
+            return ae;
+
+        return AccessExpr.create(ae.getLine(), base, index);
+    }
+
+    // Reescreve uma lista de comandos; devolve a mesma lista se nada mudou.
+    // Comandos que viram null são descartados.
+    @SuppressWarnings("unchecked")
+    protected <T extends Command> ArrayList<T> commands(List<T> cmds) {
+        ArrayList<T> res = new ArrayList<T>(cmds.size());
+        boolean changed = false;
+        for (T c : cmds) {
+            Command n = command(c);
+            changed |= n != c;
+            if (n != null)
+                res.add((T) n);
+        }
+
+        if (!changed && cmds instanceof ArrayList)
+            return (ArrayList<T>) cmds;
+
+        return res;
+    }
+
+    private ArrayList<Expr> exprs(ArrayList<Expr> list) {
+        ArrayList<Expr> res = new ArrayList<Expr>(list.size());
+        boolean changed = false;
+        for (Expr e : list) {
+            Expr n = expr(e);
+            changed |= n != e;
+            res.add(n);
+        }
+
+        return changed ? res : list;
+    }
+
+}
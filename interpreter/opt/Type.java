@@ -0,0 +1,48 @@
+package interpreter.opt;
+
+import interpreter.value.ArrayValue;
+import interpreter.value.BooleanValue;
+import interpreter.value.MapValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Tipos da inferência: o valor null, uma das classes de valor, ou ANY
+// quando mais de um é possível.
+public enum Type {
+
+    NULL(null),
+    NUMBER(NumberValue.class),
+    TEXT(TextValue.class),
+    BOOLEAN(BooleanValue.class),
+    ARRAY(ArrayValue.class),
+    MAP(MapValue.class),
+    ANY(null);
+
+    private Class<?> valueClass;
+
+    private Type(Class<?> valueClass) {
+        this.valueClass = valueClass;
+    }
+
+    // Classe dos valores deste tipo; null para NULL e ANY.
+    public Class<?> valueClass() {
+        return valueClass;
+    }
+
+    public Type join(Type other) {
+        return other == this ? this : ANY;
+    }
+
+    public static Type of(Value<?> v) {
+        if (v == null)
+            return NULL;
+
+        for (Type t : values())
+            if (t.valueClass == v.getClass())
+                return t;
+
+        return ANY;
+    }
+
+}
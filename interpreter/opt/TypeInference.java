@@ -0,0 +1,347 @@
+package interpreter.opt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.CountedForCommand;
+import interpreter.command.DeclarationCommand;
+import interpreter.command.DeclarationType1Command;
+import interpreter.command.DeclarationType2Command;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.TypedAssignCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.ArrayExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CastExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.InvariantExpr;
+import interpreter.expr.MapExpr;
+import interpreter.expr.Specialization;
+import interpreter.expr.TypedBinaryExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.util.SlotTable;
+
+// Inferência de tipos sensível ao fluxo: percorre o programa na ordem de
+// execução com o tipo de cada variável naquele ponto (no início, todas
+// são null). Nos if os dois ramos são unidos; nos laços o corpo é
+// repetido até os tipos do início da volta pararem de mudar.
+//
+// Com os tipos, BinaryExpr e atribuições compostas cujos operandos têm
+// tipo conhecido viram TypedBinaryExpr/TypedAssignCommand, que aplicam a
+// especialização direto. Nós desconhecidos deixam tudo como ANY.
+public class TypeInference extends TreeRewriter implements Pass {
+
+    private SlotTable slots;
+    private int vars;
+    private Type[] state;
+    private boolean rewrite;
+
+    // slots que, em todo o programa, só são lidos e escritos como número
+    private boolean[] numbers;
+
+    public TypeInference(SlotTable slots) {
+        this.slots = slots;
+    }
+
+    // Para um programa já resolvido, com 'vars' slots.
+    public TypeInference(int vars) {
+        this.vars = vars;
+    }
+
+    @Override
+    public String name() {
+        return "types";
+    }
+
+    @Override
+    public Command run(Command cmd) {
+        int vars = slots != null ? slots.size() : this.vars;
+        state = new Type[vars];
+        Arrays.fill(state, Type.NULL);
+        numbers = new boolean[vars];
+        Arrays.fill(numbers, true);
+
+        rewrite = true;
+        return command(cmd);
+    }
+
+    // Depois de run(): slots cujas leituras e escritas são sempre números,
+    // do início ao fim do programa. O compilador JVM os mantém em locais
+    // int.
+    public boolean[] numbers() {
+        return numbers;
+    }
+
+    @Override
+    public Command command(Command cmd) {
+        if (cmd == null || cmd instanceof BlocksCommand || cmd instanceof AssignCommand
+                || cmd instanceof DeclarationCommand || cmd instanceof PrintCommand
+                || cmd instanceof IfCommand || cmd instanceof WhileCommand || cmd instanceof ForCommand)
+            return super.command(cmd);
+
+        unknown();
+        return cmd;
+    }
+
+    @Override
+    public Expr expr(Expr expr) {
+        if (expr instanceof Variable) {
+            int slot = ((Variable) expr).getSlot();
+            numbers[slot] &= state[slot] == Type.NUMBER;
+        } else if (expr instanceof InvariantExpr) {
+            // a temporária guarda UNSET antes da primeira avaliação
+            numbers[((InvariantExpr) expr).getTemp().getSlot()] = false;
+        } else if (expr instanceof ArrayExpr || expr instanceof MapExpr) {
+            // os elementos não são reescritos, só lidos
+            for (Expr e : expr instanceof ArrayExpr
+                    ? ((ArrayExpr) expr).getItems() : ((MapExpr) expr).getValues())
+                expr(e);
+        } else if (expr != null && !(expr instanceof ConstExpr || expr instanceof BinaryExpr
+                || expr instanceof UnaryExpr || expr instanceof CastExpr || expr instanceof AccessExpr
+                || expr instanceof InvariantExpr)) {
+            unknown();
+        }
+
+        return super.expr(expr);
+    }
+
+    @Override
+    protected Expr binary(BinaryExpr be) {
+        Expr e = super.binary(be);
+        if (!rewrite || !(e instanceof BinaryExpr) || e instanceof TypedBinaryExpr)
+            return e;
+
+        be = (BinaryExpr) e;
+        Class<?> ltype = type(be.getLeft()).valueClass();
+        Class<?> rtype = type(be.getRight()).valueClass();
+        if (Specialization.forBinary(be.getOp(), ltype, rtype) == null)
+            return be;
+
+        return TypedBinaryExpr.create(be.getLine(), be.getLeft(), be.getOp(), be.getRight(), ltype, rtype);
+    }
+
+    @Override
+    protected Command assign(AssignCommand ac) {
+        Command c = super.assign(ac);
+        if (!(ac.getLhs() instanceof Variable)) {
+            if (!(ac.getLhs() instanceof AccessExpr))
+                unknown();
+            return c;
+        }
+
+        ac = (AssignCommand) c;
+        int slot = ((Variable) ac.getLhs()).getSlot();
+        Type rtype = type(ac.getRhs());
+        if (ac.getOp() == AssignCommand.Op.StdOp) {
+            write(slot, rtype);
+            return ac;
+        }
+
+        Type ltype = state[slot];
+        numbers[slot] &= ltype == Type.NUMBER;
+        write(slot, combine(ac.getOp(), ltype, rtype));
+
+        if (!rewrite || ac instanceof TypedAssignCommand
+                || Specialization.forAssign(ac.getOp(), ltype.valueClass(), rtype.valueClass()) == null)
+            return ac;
+
+        return TypedAssignCommand.create(ac.getLine(), ac.getLhs(), ac.getOp(), ac.getRhs(),
+            ltype.valueClass(), rtype.valueClass());
+    }
+
+    // As variáveis recebem os valores uma a uma; a expressão seguinte já
+    // vê o tipo das anteriores.
+    @Override
+    protected Command declaration(DeclarationType1Command dc) {
+        ArrayList<Expr> rhs = declare(dc.getLhs(), dc.getRhs());
+        return rhs == dc.getRhs() ? dc : new DeclarationType1Command(dc.getLine(), dc.getLhs(), rhs);
+    }
+
+    @Override
+    protected Command declaration(DeclarationType2Command dc) {
+        ArrayList<Expr> rhs = declare(dc.getLhs(), dc.getRhs());
+        return rhs == dc.getRhs() ? dc : new DeclarationType2Command(dc.getLine(), dc.getLhs(), rhs);
+    }
+
+    private ArrayList<Expr> declare(ArrayList<Variable> lhs, ArrayList<Expr> rhs) {
+        ArrayList<Expr> res = new ArrayList<Expr>(rhs.size());
+        boolean changed = false;
+        for (int i = 0; i < lhs.size(); i++) {
+            Expr e = i < rhs.size() ? rhs.get(i) : null;
+            Expr n = expr(e);
+            if (i < rhs.size()) {
+                res.add(n);
+                changed |= n != e;
+            }
+            write(lhs.get(i).getSlot(), type(n));
+        }
+
+        return changed ? res : rhs;
+    }
+
+    @Override
+    protected Command conditional(IfCommand ic) {
+        Expr e = expr(ic.getExpr());
+        Type[] before = state.clone();
+        Command cmdsIf = command(ic.getCommandsIf());
+        Type[] afterIf = state;
+        state = before;
+        Command cmdsElse = command(ic.getCommandsElse());
+        join(afterIf);
+
+        if (e == ic.getExpr() && cmdsIf == ic.getCommandsIf() && cmdsElse == ic.getCommandsElse())
+            return ic;
+
+        return new IfCommand(ic.getLine(), e, cmdsIf, cmdsElse);
+    }
+
+    @Override
+    protected Command loop(WhileCommand wc) {
+        Type[] head = fixpoint(wc.getExpr(), wc.getCommands(), null);
+
+        Expr e = expr(wc.getExpr());
+        Command cmds = command(wc.getCommands());
+        state = head;
+
+        return e == wc.getExpr() && cmds == wc.getCommands() ? wc : new WhileCommand(wc.getLine(), e, cmds);
+    }
+
+    @Override
+    protected Command loop(ForCommand fc) {
+        ArrayList<DeclarationCommand> decl = commands(fc.getLeftDecl());
+        ArrayList<AssignCommand> assign = commands(fc.getLeftAssign());
+        Type[] head = fixpoint(fc.getExpr(), fc.getCommands(), fc.getRight());
+
+        Expr e = expr(fc.getExpr());
+        Command cmds = command(fc.getCommands());
+        ArrayList<AssignCommand> right = commands(fc.getRight());
+        state = head;
+
+        if (decl == fc.getLeftDecl() && assign == fc.getLeftAssign() && e == fc.getExpr()
+                && right == fc.getRight() && cmds == fc.getCommands())
+            return fc;
+
+        return CountedForCommand.create(fc.getLine(), decl, assign, e, right, cmds);
+    }
+
+    // Repete a volta (condição, corpo, incremento) sem reescrever até o
+    // estado do início da volta estabilizar. Deixa 'state' nesse estado,
+    // que também é o da saída do laço, e o devolve.
+    private Type[] fixpoint(Expr cond, Command body, ArrayList<AssignCommand> step) {
+        boolean saved = rewrite;
+        rewrite = false;
+
+        Type[] head = state.clone();
+        while (true) {
+            state = head.clone();
+            expr(cond);
+            command(body);
+            if (step != null)
+                commands(step);
+            join(head);
+
+            if (Arrays.equals(state, head))
+                break;
+            head = state;
+        }
+
+        rewrite = saved;
+        state = head.clone();
+        return head;
+    }
+
+    private static Type combine(AssignCommand.Op op, Type ltype, Type rtype) {
+        if (op != AssignCommand.Op.AddOp)
+            return Type.NUMBER;
+
+        return add(ltype, rtype);
+    }
+
+    private static Type add(Type ltype, Type rtype) {
+        // número + algo só retorna se o outro também for número
+        if (ltype == Type.NUMBER)
+            return Type.NUMBER;
+        if (ltype == Type.TEXT && (rtype == Type.TEXT || rtype == Type.NUMBER))
+            return Type.TEXT;
+        return Type.ANY;
+    }
+
+    // Tipo do valor da expressão no estado atual. Operadores que abortam
+    // com operandos errados produzem sempre o mesmo tipo quando retornam.
+    private Type type(Expr expr) {
+        if (expr == null) {
+            return Type.NULL;
+        } else if (expr instanceof ConstExpr) {
+            return Type.of(((ConstExpr) expr).getValue());
+        } else if (expr instanceof Variable) {
+            return state[((Variable) expr).getSlot()];
+        } else if (expr instanceof BinaryExpr) {
+            BinaryExpr be = (BinaryExpr) expr;
+            switch (be.getOp()) {
+                case AddOp:
+                    return add(type(be.getLeft()), type(be.getRight()));
+                case SubOp:
+                case MulOp:
+                case DivOp:
+                case ModOp:
+                case PowerOp:
+                    return Type.NUMBER;
+                default:
+                    return Type.BOOLEAN;
+            }
+        } else if (expr instanceof UnaryExpr) {
+            switch (((UnaryExpr) expr).getOp()) {
+                case NotOp:
+                    return Type.BOOLEAN;
+                case NegOp:
+                    return Type.NUMBER;
+                case ReadOp:
+                    return Type.TEXT;
+                default:
+                    return Type.ANY;
+            }
+        } else if (expr instanceof CastExpr) {
+            switch (((CastExpr) expr).getOp()) {
+                case toBoolean:
+                    return Type.BOOLEAN;
+                case toInteger:
+                    return Type.NUMBER;
+                default:
+                    return Type.TEXT;
+            }
+        } else if (expr instanceof InvariantExpr) {
+            return type(((InvariantExpr) expr).getExpr());
+        } else if (expr instanceof ArrayExpr) {
+            return Type.ARRAY;
+        } else if (expr instanceof MapExpr) {
+            return Type.MAP;
+        }
+
+        return Type.ANY;
+    }
+
+    private void write(int slot, Type type) {
+        state[slot] = type;
+        numbers[slot] &= type == Type.NUMBER;
+    }
+
+    private void join(Type[] other) {
+        for (int i = 0; i < state.length; i++)
+            state[i] = state[i].join(other[i]);
+    }
+
+    // Um nó desconhecido pode ler ou escrever qualquer variável.
+    private void unknown() {
+        Arrays.fill(state, Type.ANY);
+        Arrays.fill(numbers, false);
+    }
+
+}
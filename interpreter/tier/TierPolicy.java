@@ -0,0 +1,87 @@
+package interpreter.tier;
+
+import java.io.PrintStream;
+
+import interpreter.closure.ClosureCompiler;
+import interpreter.closure.CompiledCommand;
+import interpreter.command.Command;
+import interpreter.command.ForCommand;
+import interpreter.jvm.JvmCompiler;
+import interpreter.jvm.JvmScript;
+import interpreter.util.ExecutionContext;
+
+// Quando promover um laço da árvore para um nível compilado, e para qual.
+// Os laços contam as próprias voltas; ao atingir o limite pedem aqui a
+// versão compilada do restante do laço e continuam nela, na volta em que
+// estão (as variáveis já estão no contexto).
+//
+//   -Dmgi.tier.backedge=N       voltas até promover (padrão 1000)
+//   -Dmgi.tier.compiler=jvm     nível compilado: jvm ou closure (com
+//                               nós de efeito desconhecido, closure)
+public class TierPolicy {
+
+    private int threshold;
+    private String compiler;
+    private PrintStream log;
+
+    public TierPolicy(int threshold, String compiler, PrintStream log) {
+        if (!compiler.equals("jvm") && !compiler.equals("closure"))
+            throw new IllegalArgumentException("Unknown tier " + compiler);
+
+        this.threshold = threshold;
+        this.compiler = compiler;
+        this.log = log;
+    }
+
+    // log: onde registrar as promoções, ou null.
+    public static TierPolicy fromProperties(PrintStream log) {
+        return new TierPolicy(Integer.getInteger("mgi.tier.backedge", 1000),
+            System.getProperty("mgi.tier.compiler", "jvm"), log);
+    }
+
+    public int threshold() {
+        return threshold;
+    }
+
+    // Versão compilada do laço (sem a inicialização do for), ou null se
+    // ele não puder ser compilado.
+    public CompiledCommand promote(Command loop, int backEdges, ExecutionContext ctx) {
+        CompiledCommand compiled = null;
+        String tier = compiler;
+        try {
+            if (compiler.equals("jvm")) {
+                // um nó da árvore de efeito desconhecido faz o código da JVM
+                // passar todas as variáveis pelo contexto a cada volta; o
+                // laço vai então para as closures
+                JvmScript js = JvmCompiler.compileLoop(loop, ctx.size());
+                if (js.fullSpills() == 0)
+                    compiled = js::run;
+                else
+                    tier = "closure";
+            }
+
+            if (compiled == null) {
+                if (loop instanceof ForCommand)
+                    compiled = ClosureCompiler.compileLoop((ForCommand) loop);
+                else
+                    compiled = ClosureCompiler.compile(loop);
+            }
+        } catch (IllegalStateException e) {
+            if (log != null)
+                log.printf("[tier] line %02d: %s not compiled: %s\n",
+                    loop.getLine(), kind(loop), e.getMessage());
+            return null;
+        }
+
+        if (log != null)
+            log.printf("[tier] line %02d: %s promoted to %s after %d back edges\n",
+                loop.getLine(), kind(loop), tier, backEdges);
+
+        return compiled;
+    }
+
+    private static String kind(Command loop) {
+        return loop instanceof ForCommand ? "for" : "while";
+    }
+
+}
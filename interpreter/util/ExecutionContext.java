@@ -0,0 +1,75 @@
+package interpreter.util;
+
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Scanner;
+
+import interpreter.tier.TierPolicy;
+import interpreter.value.Value;
+
+// Estado de uma execução: o frame de variáveis e a entrada/saída do
+// script. Cada execução tem o seu, então vários scripts podem rodar ao
+// mesmo tempo na mesma JVM.
+public class ExecutionContext {
+
+    private SlotTable names;
+    private Value<?>[] frame;
+    private Scanner in;
+    private PrintStream out;
+    private TierPolicy tiers;
+
+    public ExecutionContext(SlotTable names) {
+        this(names, System.in, System.out);
+    }
+
+    public ExecutionContext(SlotTable names, InputStream in, PrintStream out) {
+        this.names = names;
+        this.frame = new Value<?>[names.size()];
+        this.in = new Scanner(in);
+        this.out = out;
+    }
+
+    public int size() {
+        return frame.length;
+    }
+
+    public Value<?> read(int slot) {
+        return frame[slot];
+    }
+
+    public void write(int slot, Value<?> value) {
+        frame[slot] = value;
+    }
+
+    public Scanner in() {
+        return in;
+    }
+
+    public PrintStream out() {
+        return out;
+    }
+
+    // Política de promoção dos laços; null desliga os níveis compilados.
+    public TierPolicy tiers() {
+        return tiers;
+    }
+
+    public void setTiers(TierPolicy tiers) {
+        this.tiers = tiers;
+    }
+
+    // Visão por nome, usada só para depuração.
+    public Value<?> read(String name) {
+        int slot = names.find(name);
+        return slot < 0 ? null : frame[slot];
+    }
+
+    public void write(String name, Value<?> value) {
+        int slot = names.find(name);
+        if (slot < 0)
+            throw new IllegalArgumentException("Unknown variable " + name);
+
+        frame[slot] = value;
+    }
+
+}
@@ -0,0 +1,18 @@
+package interpreter.util;
+
+public class InterpreterException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private int line;
+
+    public InterpreterException(int line) {
+        super(String.format("%02d: Operação inválida", line));
+        this.line = line;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+}
@@ -0,0 +1,43 @@
+package interpreter.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Associa cada nome de variável do programa a uma posição no frame.
+public class SlotTable {
+
+    private Map<String, Integer> slots;
+    private List<String> names;
+
+    public SlotTable() {
+        slots = new HashMap<String, Integer>();
+        names = new ArrayList<String>();
+    }
+
+    public int slot(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = names.size();
+            slots.put(name, slot);
+            names.add(name);
+        }
+
+        return slot;
+    }
+
+    public int find(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    public String name(int slot) {
+        return names.get(slot);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+}
@@ -6,8 +6,7 @@ public class Utils {
     }
 
     public static void abort(int line) {
-        System.out.printf("%02d: Operação inválida\n", line);
-        System.exit(1);
+        throw new InterpreterException(line);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package interpreter.value;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+// Índice de pertinência de um arranjo, para `in` repetido. Arranjos em
+// int[] usam uma tabela de inteiros com endereçamento aberto; os demais,
+// um HashSet dos valores. O arranjo descarta o índice a cada escrita.
+abstract class ArrayIndex {
+
+    abstract boolean contains(Value<?> v);
+
+    static ArrayIndex build(ArrayValue av) {
+        return av.isInts() ? new Ints(av) : new Objects(av);
+    }
+
+    private static class Ints extends ArrayIndex {
+        // Integer.MIN_VALUE marca posição vazia; se ele está no arranjo,
+        // fica registrado em hasMin.
+        private static final int EMPTY = Integer.MIN_VALUE;
+
+        private int[] table;
+        private int mask;
+        private boolean hasMin;
+
+        Ints(ArrayValue av) {
+            int n = av.size();
+            int cap = Integer.highestOneBit(Math.max(4, n) * 2 - 1) << 1;
+            table = new int[cap];
+            mask = cap - 1;
+            Arrays.fill(table, EMPTY);
+
+            for (int i = 0; i < n; i++) {
+                int x = av.getInt(i);
+                if (x == EMPTY) {
+                    hasMin = true;
+                    continue;
+                }
+
+                int h = hash(x) & mask;
+                while (table[h] != EMPTY && table[h] != x)
+                    h = (h + 1) & mask;
+                table[h] = x;
+            }
+        }
+
+        private static int hash(int x) {
+            int h = x * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        @Override
+        boolean contains(Value<?> v) {
+            if (!(v instanceof NumberValue))
+                return false;
+
+            int x = ((NumberValue) v).intValue();
+            if (x == EMPTY)
+                return hasMin;
+
+            int h = hash(x) & mask;
+            while (table[h] != EMPTY) {
+                if (table[h] == x)
+                    return true;
+                h = (h + 1) & mask;
+            }
+
+            return false;
+        }
+    }
+
+    private static class Objects extends ArrayIndex {
+        private Set<Value<?>> values;
+
+        Objects(ArrayValue av) {
+            values = new HashSet<Value<?>>(av.size() * 2);
+            for (int i = 0; i < av.size(); i++)
+                values.add(av.get(i));
+        }
+
+        @Override
+        boolean contains(Value<?> v) {
+            return values.contains(v);
+        }
+    }
+
+}
@@ -1,39 +1,195 @@
 package interpreter.value;
 
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
 
+// Os elementos ficam num int[] enquanto todos forem números; a primeira
+// escrita de outro valor migra o arranjo para um Value<?>[]. value()
+// devolve uma visão de lista sobre o armazenamento atual.
 public class ArrayValue extends Value<List<Value<?>>> {
 
-    private List<Value<?>> value;
+    // `in` percorre o arranjo nas primeiras vezes; depois de INDEX_AFTER
+    // buscas sem escrita no meio, arranjos com pelo menos INDEX_MIN
+    // elementos ganham um índice de hash.
+    private static final int INDEX_MIN = 16;
+    private static final int INDEX_AFTER = 4;
+
+    private int[] ints;
+    private Value<?>[] objects;
+    private int size;
+    private List<Value<?>> view;
+    private ArrayIndex index;
+    private int scans;
 
     public ArrayValue(List<Value<?>> value) {
-        this.value = value;
+        this(value.toArray(new Value<?>[value.size()]));
+    }
+
+    public ArrayValue(Value<?>[] values) {
+        this.size = values.length;
+        if (numbers(values)) {
+            this.ints = new int[size];
+            for (int i = 0; i < size; i++)
+                this.ints[i] = ((NumberValue) values[i]).intValue();
+        } else {
+            this.objects = values;
+        }
+    }
+
+    public ArrayValue(int[] ints) {
+        this.ints = ints;
+        this.size = ints.length;
+    }
+
+    private static boolean numbers(Value<?>[] values) {
+        for (Value<?> v : values)
+            if (!(v instanceof NumberValue))
+                return false;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // O arranjo ainda está no int[]?
+    public boolean isInts() {
+        return ints != null;
+    }
+
+    public Value<?> get(int idx) {
+        return ints != null ? NumberValue.of(ints[idx]) : objects[idx];
+    }
+
+    // Só para arranjos em isInts().
+    public int getInt(int idx) {
+        return ints[idx];
+    }
+
+    public void set(int idx, Value<?> v) {
+        changed();
+        if (ints != null) {
+            if (v instanceof NumberValue) {
+                ints[idx] = ((NumberValue) v).intValue();
+                return;
+            }
+
+            migrate();
+        }
+
+        objects[idx] = v;
+    }
+
+    public void add(Value<?> v) {
+        changed();
+        if (ints != null && !(v instanceof NumberValue))
+            migrate();
+
+        if (ints != null) {
+            if (size == ints.length)
+                ints = Arrays.copyOf(ints, Math.max(8, size * 2));
+            ints[size++] = ((NumberValue) v).intValue();
+        } else {
+            if (size == objects.length)
+                objects = Arrays.copyOf(objects, Math.max(8, size * 2));
+            objects[size++] = v;
+        }
+    }
+
+    // O valor está no arranjo? Mesma igualdade de equals dos valores.
+    public boolean contains(Value<?> v) {
+        if (index == null) {
+            if (size < INDEX_MIN || ++scans <= INDEX_AFTER)
+                return scan(v);
+
+            index = ArrayIndex.build(this);
+        }
+
+        return index.contains(v);
+    }
+
+    private boolean scan(Value<?> v) {
+        if (ints != null) {
+            if (!(v instanceof NumberValue))
+                return false;
+
+            int x = ((NumberValue) v).intValue();
+            for (int i = 0; i < size; i++)
+                if (ints[i] == x)
+                    return true;
+            return false;
+        }
+
+        for (int i = 0; i < size; i++)
+            if (v == null ? objects[i] == null : v.equals(objects[i]))
+                return true;
+        return false;
+    }
+
+    private void changed() {
+        index = null;
+        scans = 0;
+    }
+
+    private void migrate() {
+        Value<?>[] values = new Value<?>[Math.max(size, ints.length)];
+        for (int i = 0; i < size; i++)
+            values[i] = NumberValue.of(ints[i]);
+
+        objects = values;
+        ints = null;
     }
 
     @Override
     public List<Value<?>> value() {
-        return this.value;
+        if (view == null) {
+            view = new AbstractList<Value<?>>() {
+                @Override
+                public Value<?> get(int index) {
+                    if (index < 0 || index >= size)
+                        throw new IndexOutOfBoundsException(index);
+                    return ArrayValue.this.get(index);
+                }
+
+                @Override
+                public Value<?> set(int index, Value<?> element) {
+                    Value<?> old = get(index);
+                    ArrayValue.this.set(index, element);
+                    return old;
+                }
+
+                @Override
+                public void add(int index, Value<?> element) {
+                    if (index != size)
+                        throw new UnsupportedOperationException();
+                    ArrayValue.this.add(element);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        return view;
     }
 
     @Override
     public boolean eval() {
-        return !value.isEmpty();
+        return size != 0;
     }
 
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        // igualdade por identidade; o hash não pode mudar com os elementos
+        return System.identityHashCode(this);
     }
 
     @Override
     public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        } else if (obj instanceof ArrayValue) {
-            return this.value == ((ArrayValue) obj).value;
-        } else {
-            return false;
-        }
+        return this == obj;
     }
 
     @Override
@@ -41,7 +197,8 @@ public class ArrayValue extends Value<List<Value<?>>> {
         StringBuffer sb = new StringBuffer();
         sb.append("[");
 
-        for (Value<?> v : this.value) {
+        for (int i = 0; i < size; i++) {
+            Value<?> v = get(i);
             sb.append(v == null ? "null" : v.toString());
             sb.append(", ");
         }
@@ -1,27 +1,37 @@
-
 package interpreter.value;
 
 public class BooleanValue extends Value<Boolean> {
 
-    private Boolean value;
+    public static final BooleanValue TRUE = new BooleanValue(true);
+    public static final BooleanValue FALSE = new BooleanValue(false);
+
+    private final boolean value;
 
-    public BooleanValue(Boolean value) {
+    private BooleanValue(boolean value) {
         this.value = value;
     }
 
+    public static BooleanValue of(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
     @Override
     public Boolean value() {
         return this.value;
     }
 
+    public boolean booleanValue() {
+        return this.value;
+    }
+
     @Override
     public boolean eval() {
-        return this.value.booleanValue();
+        return this.value;
     }
 
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return Boolean.hashCode(this.value);
     }
 
     @Override
@@ -29,7 +39,7 @@ public class BooleanValue extends Value<Boolean> {
         if (this == obj) {
             return true;
         } else if (obj instanceof BooleanValue) {
-            return this.value.booleanValue() == ((BooleanValue) obj).value.booleanValue();
+            return this.value == ((BooleanValue) obj).value;
         } else {
             return false;
         }
@@ -37,7 +47,7 @@ public class BooleanValue extends Value<Boolean> {
 
     @Override
     public String toString() {
-        return this.value.toString();
+        return Boolean.toString(this.value);
     }
 
 }
@@ -1,39 +1,103 @@
 package interpreter.value;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+// Mapas criados por literal guardam os valores num Value<?>[] indexado
+// pelo Shape do literal. Uma chave nova ou o acesso ao Map de value()
+// passam o mapa para um LinkedHashMap, que ele usa daí em diante.
 public class MapValue extends Value<Map<String, Value<?>>> {
 
+    private Shape shape;
+    private Value<?>[] slots;
     private Map<String, Value<?>> value;
 
     public MapValue(Map<String, Value<?>> value) {
         this.value = value;
     }
 
+    public MapValue(Shape shape, Value<?>[] slots) {
+        this.shape = shape;
+        this.slots = slots;
+    }
+
+    // Shape do mapa, ou null se ele já virou um Map.
+    public Shape shape() {
+        return shape;
+    }
+
+    // Só para mapas com shape.
+    public Value<?> slot(int i) {
+        return slots[i];
+    }
+
+    public void setSlot(int i, Value<?> v) {
+        slots[i] = v;
+    }
+
+    public int size() {
+        return shape != null ? shape.size() : value.size();
+    }
+
+    public Value<?> get(String key) {
+        if (shape != null) {
+            int i = shape.indexOf(key);
+            return i < 0 ? null : slots[i];
+        }
+
+        return value.get(key);
+    }
+
+    public boolean has(String key) {
+        return shape != null ? shape.indexOf(key) >= 0 : value.containsKey(key);
+    }
+
+    public void put(String key, Value<?> v) {
+        if (shape != null) {
+            int i = shape.indexOf(key);
+            if (i >= 0) {
+                slots[i] = v;
+                return;
+            }
+
+            dictionary();
+        }
+
+        value.put(key, v);
+    }
+
+    private void dictionary() {
+        Map<String, Value<?>> map = new LinkedHashMap<String, Value<?>>();
+        for (int i = 0; i < slots.length; i++)
+            map.put(shape.key(i), slots[i]);
+
+        value = map;
+        shape = null;
+        slots = null;
+    }
+
     @Override
     public Map<String, Value<?>> value() {
+        if (shape != null)
+            dictionary();
+
         return this.value;
     }
 
     @Override
     public boolean eval() {
-        return !value.isEmpty();
+        return size() != 0;
     }
 
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        // igualdade por identidade; o hash não pode mudar com as entradas
+        return System.identityHashCode(this);
     }
 
     @Override
     public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        } else if (obj instanceof MapValue) {
-            return this.value == ((MapValue) obj).value;
-        } else {
-            return false;
-        }
+        return this == obj;
     }
 
     @Override
@@ -41,17 +105,15 @@ public class MapValue extends Value<Map<String, Value<?>>> {
         StringBuffer sb = new StringBuffer();
         sb.append("[");
 
-        if (this.value.isEmpty()) {
+        if (size() == 0) {
             sb.append(":");
         } else {
-            for (Map.Entry<String, Value<?>> e : this.value.entrySet()) {
-                String k = e.getKey();
-                Value<?> v = e.getValue();
-
-                sb.append(k);
-                sb.append(":");
-                sb.append(v == null ? "null" : v.toString());
-                sb.append(", ");
+            if (shape != null) {
+                for (int i = 0; i < slots.length; i++)
+                    entry(sb, shape.key(i), slots[i]);
+            } else {
+                for (Map.Entry<String, Value<?>> e : this.value.entrySet())
+                    entry(sb, e.getKey(), e.getValue());
             }
 
             if (sb.length() > 1)
@@ -62,4 +124,11 @@ public class MapValue extends Value<Map<String, Value<?>>> {
         return sb.toString();
     }
 
+    private static void entry(StringBuffer sb, String k, Value<?> v) {
+        sb.append(k);
+        sb.append(":");
+        sb.append(v == null ? "null" : v.toString());
+        sb.append(", ");
+    }
+
 }
@@ -2,25 +2,54 @@ package interpreter.value;
 
 public class NumberValue extends Value<Integer> {
 
-    private Integer value;
+    // Faixa de inteiros pré-alocados; ajustável por
+    // -Dmgi.numbercache.low=... e -Dmgi.numbercache.high=...
+    private static final int LOW = Integer.getInteger("mgi.numbercache.low", -128);
+    private static final int HIGH = Math.max(LOW, Integer.getInteger("mgi.numbercache.high", 1023));
+    private static final NumberValue[] CACHE = new NumberValue[HIGH - LOW + 1];
 
-    public NumberValue(Integer value) {
+    static {
+        for (int i = 0; i < CACHE.length; i++)
+            CACHE[i] = new NumberValue(LOW + i);
+    }
+
+    public static final NumberValue ZERO = of(0);
+    public static final NumberValue ONE = of(1);
+
+    private final int value;
+
+    private NumberValue(int value) {
         this.value = value;
     }
 
+    public static NumberValue of(int value) {
+        if (value >= LOW && value <= HIGH)
+            return CACHE[value - LOW];
+
+        return new NumberValue(value);
+    }
+
+    public static NumberValue of(boolean value) {
+        return value ? ONE : ZERO;
+    }
+
     @Override
     public Integer value() {
         return this.value;
     }
 
+    public int intValue() {
+        return this.value;
+    }
+
     @Override
     public boolean eval() {
-        return value.intValue() != 0;
+        return value != 0;
     }
 
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return Integer.hashCode(this.value);
     }
 
     @Override
@@ -28,7 +57,7 @@ public class NumberValue extends Value<Integer> {
         if (this == obj) {
             return true;
         } else if (obj instanceof NumberValue) {
-            return this.value.intValue() == ((NumberValue) obj).value.intValue();
+            return this.value == ((NumberValue) obj).value;
         } else {
             return false;
         }
@@ -36,7 +65,7 @@ public class NumberValue extends Value<Integer> {
 
     @Override
     public String toString() {
-        return this.value.toString();
+        return Integer.toString(this.value);
     }
 
 }
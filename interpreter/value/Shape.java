@@ -0,0 +1,57 @@
+package interpreter.value;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Conjunto ordenado de chaves de um mapa. Mapas com as mesmas chaves,
+// criadas na mesma ordem, compartilham o mesmo Shape: cada Shape guarda as
+// transições para os shapes com uma chave a mais. A posição de cada chave
+// indexa o Value<?>[] do MapValue.
+public class Shape {
+
+    public static final Shape EMPTY = new Shape(new String[0]);
+
+    private String[] keys;
+    private Map<String, Integer> index;
+    private Map<String, Shape> transitions;
+
+    private Shape(String[] keys) {
+        this.keys = keys;
+        this.index = new HashMap<String, Integer>();
+        for (int i = 0; i < keys.length; i++)
+            this.index.put(keys[i], i);
+        this.transitions = new HashMap<String, Shape>();
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public String key(int i) {
+        return keys[i];
+    }
+
+    // Posição da chave, ou -1 se o shape não a tem.
+    public int indexOf(String key) {
+        Integer i = index.get(key);
+        return i == null ? -1 : i;
+    }
+
+    // Shape com a chave acrescentada no fim (o próprio, se já a tem).
+    public synchronized Shape with(String key) {
+        if (index.containsKey(key))
+            return this;
+
+        Shape next = transitions.get(key);
+        if (next == null) {
+            String[] k = new String[keys.length + 1];
+            System.arraycopy(keys, 0, k, 0, keys.length);
+            k[keys.length] = key;
+            next = new Shape(k);
+            transitions.put(key, next);
+        }
+
+        return next;
+    }
+
+}
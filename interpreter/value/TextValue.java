@@ -2,25 +2,75 @@ package interpreter.value;
 
 public class TextValue extends Value<String> {
 
+    // Um texto é uma String pronta ou o prefixo [0, length) de um
+    // StringBuilder compartilhado. Os construtores só acrescentam no fim,
+    // então o prefixo de cada valor nunca muda; quem está na ponta do
+    // builder pode continuar acrescentando sem copiar. A String só é
+    // montada quando alguém pede os caracteres (value(), equals, ...).
     private String value;
+    private StringBuilder builder;
+    private int length;
 
     public TextValue(String value) {
         this.value = value;
+        this.length = value.length();
+    }
+
+    private TextValue(StringBuilder builder) {
+        this.builder = builder;
+        this.length = builder.length();
+    }
+
+    public TextValue concat(String suffix) {
+        return new TextValue(extend(suffix.length()).append(suffix));
+    }
+
+    public TextValue concat(int suffix) {
+        return new TextValue(extend(11).append(suffix));
+    }
+
+    public TextValue concat(TextValue suffix) {
+        if (suffix.builder == null || suffix.builder == this.builder)
+            return concat(suffix.value());
+
+        return new TextValue(extend(suffix.length).append(suffix.builder, 0, suffix.length));
+    }
+
+    // Builder onde acrescentar: o próprio, se este valor está na ponta,
+    // ou uma cópia nova com folga para os próximos acréscimos.
+    private StringBuilder extend(int extra) {
+        if (builder != null && builder.length() == length)
+            return builder;
+
+        StringBuilder sb = new StringBuilder(Math.max(16, (length + extra) * 2));
+        if (builder != null)
+            sb.append(builder, 0, length);
+        else
+            sb.append(value);
+
+        return sb;
+    }
+
+    public int length() {
+        return this.length;
     }
 
     @Override
     public String value() {
+        if (this.value == null)
+            this.value = builder.substring(0, length);
+
         return this.value;
     }
 
     @Override
     public boolean eval() {
-        return !value.equals("");
+        return length != 0;
     }
 
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return this.value().hashCode();
     }
 
     @Override
@@ -28,7 +78,8 @@ public class TextValue extends Value<String> {
         if (this == obj) {
             return true;
         } else if (obj instanceof TextValue) {
-            return this.value.equals(((TextValue) obj).value);
+            TextValue tv = (TextValue) obj;
+            return this.length == tv.length && this.value().equals(tv.value());
         } else {
             return false;
         }
@@ -36,7 +87,7 @@ public class TextValue extends Value<String> {
 
     @Override
     public String toString() {
-        return this.value.toString();
+        return this.value();
     }
 
 }
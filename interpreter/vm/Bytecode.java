@@ -0,0 +1,36 @@
+package interpreter.vm;
+
+// Programa compilado: instruções, tabela de constantes e o tamanho
+// máximo da pilha de operandos.
+public class Bytecode {
+
+    final int[] code;
+    final Object[] constants;
+    final int maxStack;
+
+    Bytecode(int[] code, Object[] constants, int maxStack) {
+        this.code = code;
+        this.constants = constants;
+        this.maxStack = maxStack;
+    }
+
+    public int size() {
+        return code.length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int pc = 0; pc < code.length; ) {
+            int op = code[pc];
+            sb.append(String.format("%04d %-10s", pc, Opcode.NAMES[op]));
+            for (int i = 1; i <= Opcode.OPERANDS[op]; i++)
+                sb.append(' ').append(code[pc + i]);
+            sb.append('\n');
+            pc += 1 + Opcode.OPERANDS[op];
+        }
+
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,292 @@
+package interpreter.vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DeclarationCommand;
+import interpreter.command.DeclarationType1Command;
+import interpreter.command.DeclarationType2Command;
+import interpreter.command.ForCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CastExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.PropertyAccessExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.VarCompareConst;
+import interpreter.expr.Variable;
+import interpreter.value.NumberValue;
+
+// Traduz a árvore de comandos/expressões para o bytecode da VM. Nós que
+// o compilador não conhece viram EVAL/EXEC e são executados pela própria
+// árvore.
+public class BytecodeCompiler {
+
+    // Chave usada no lugar de null na tabela de constantes.
+    private static final Object NULL = new Object();
+
+    private int[] code;
+    private int size;
+    private List<Object> constants;
+    private Map<Object, Integer> constantIndex;
+    private int depth;
+    private int maxDepth;
+
+    public BytecodeCompiler() {
+        code = new int[64];
+        size = 0;
+        constants = new ArrayList<Object>();
+        constantIndex = new IdentityHashMap<Object, Integer>();
+        depth = 0;
+        maxDepth = 0;
+    }
+
+    public static Bytecode compile(Command cmd) {
+        BytecodeCompiler c = new BytecodeCompiler();
+        c.command(cmd);
+        c.emit(Opcode.HALT);
+
+        return new Bytecode(Arrays.copyOf(c.code, c.size),
+            c.constants.toArray(), c.maxDepth);
+    }
+
+    private void command(Command cmd) {
+        if (cmd instanceof BlocksCommand) {
+            for (Command c : ((BlocksCommand) cmd).getCommands())
+                command(c);
+        } else if (cmd instanceof AssignCommand) {
+            assign((AssignCommand) cmd);
+        } else if (cmd instanceof DeclarationType1Command) {
+            DeclarationType1Command dc = (DeclarationType1Command) cmd;
+            List<Variable> lhs = dc.getLhs();
+            List<Expr> rhs = dc.getRhs();
+            for (int i = 0; i < lhs.size(); i++) {
+                exprOrNull(rhs.get(i));
+                store(lhs.get(i));
+            }
+        } else if (cmd instanceof DeclarationType2Command) {
+            DeclarationType2Command dc = (DeclarationType2Command) cmd;
+            List<Variable> lhs = dc.getLhs();
+            List<Expr> rhs = dc.getRhs();
+            for (int i = 0; i < lhs.size(); i++) {
+                exprOrNull(i < rhs.size() ? rhs.get(i) : null);
+                store(lhs.get(i));
+            }
+        } else if (cmd instanceof PrintCommand) {
+            PrintCommand pc = (PrintCommand) cmd;
+            expr(pc.getExpr());
+            emit(Opcode.PRINT, pc.isNewline() ? 1 : 0);
+            pop(1);
+        } else if (cmd instanceof IfCommand) {
+            IfCommand ic = (IfCommand) cmd;
+            expr(ic.getExpr());
+            int jelse = jump(Opcode.JUMP_FALSE);
+            pop(1);
+            command(ic.getCommandsIf());
+            if (ic.getCommandsElse() != null) {
+                int jend = jump(Opcode.JUMP);
+                patch(jelse);
+                command(ic.getCommandsElse());
+                patch(jend);
+            } else {
+                patch(jelse);
+            }
+        } else if (cmd instanceof WhileCommand) {
+            WhileCommand wc = (WhileCommand) cmd;
+            int top = size;
+            expr(wc.getExpr());
+            int jend = jump(Opcode.JUMP_FALSE);
+            pop(1);
+            command(wc.getCommands());
+            emit(Opcode.JUMP, top);
+            patch(jend);
+        } else if (cmd instanceof ForCommand) {
+            ForCommand fc = (ForCommand) cmd;
+            for (DeclarationCommand dc : fc.getLeftDecl())
+                command(dc);
+            for (AssignCommand ac : fc.getLeftAssign())
+                command(ac);
+
+            // sem condição o laço não executa, como no ForCommand
+            if (fc.getExpr() != null) {
+                int top = size;
+                expr(fc.getExpr());
+                int jend = jump(Opcode.JUMP_FALSE);
+                pop(1);
+                command(fc.getCommands());
+                for (AssignCommand ac : fc.getRight())
+                    command(ac);
+                emit(Opcode.JUMP, top);
+                patch(jend);
+            }
+        } else {
+            emit(Opcode.EXEC, constant(cmd));
+        }
+    }
+
+    private void assign(AssignCommand ac) {
+        if (ac.getLhs() instanceof Variable && isNumber(ac.getRhs())
+                && (ac.getOp() == AssignCommand.Op.AddOp || ac.getOp() == AssignCommand.Op.SubOp)) {
+            emit(ac.getOp() == AssignCommand.Op.AddOp ? Opcode.ADD_VC_SET : Opcode.SUB_VC_SET,
+                ((Variable) ac.getLhs()).getSlot(), constant(((ConstExpr) ac.getRhs()).getValue()),
+                ac.getLine());
+        } else if (ac.getOp() == AssignCommand.Op.StdOp) {
+            expr(ac.getRhs());
+            store(ac.getLhs());
+        } else if (ac.getLhs() instanceof Variable) {
+            expr(ac.getLhs());
+            expr(ac.getRhs());
+            emit(Opcode.ADD_SET + ac.getOp().ordinal() - AssignCommand.Op.AddOp.ordinal(),
+                ac.getLine());
+            pop(1);
+            store(ac.getLhs());
+        } else {
+            emit(Opcode.EXEC, constant(ac));
+        }
+    }
+
+    private void store(Expr lhs) {
+        if (lhs instanceof Variable)
+            emit(Opcode.STORE, ((Variable) lhs).getSlot());
+        else
+            emit(Opcode.SET, constant(lhs));
+
+        pop(1);
+    }
+
+    private void exprOrNull(Expr expr) {
+        if (expr != null) {
+            expr(expr);
+        } else {
+            emit(Opcode.CONST, constant(null));
+            push(1);
+        }
+    }
+
+    private void expr(Expr expr) {
+        if (expr instanceof ConstExpr) {
+            emit(Opcode.CONST, constant(((ConstExpr) expr).getValue()));
+            push(1);
+        } else if (expr instanceof Variable) {
+            emit(Opcode.LOAD, ((Variable) expr).getSlot());
+            push(1);
+        } else if (expr instanceof BinaryExpr && isLogical(((BinaryExpr) expr).getOp())) {
+            BinaryExpr be = (BinaryExpr) expr;
+            expr(be.getLeft());
+            emit(be.getOp() == BinaryExpr.Op.AndOp ? Opcode.AND_JUMP : Opcode.OR_JUMP,
+                be.getLine(), -1);
+            int jend = size - 1;
+            pop(1);
+            expr(be.getRight());
+            emit(Opcode.TEST, be.getLine());
+            patch(jend);
+        } else if (expr instanceof BinaryExpr
+                && VarCompareConst.matches(((BinaryExpr) expr).getLeft(), ((BinaryExpr) expr).getOp(),
+                    ((BinaryExpr) expr).getRight())) {
+            BinaryExpr be = (BinaryExpr) expr;
+            emit(Opcode.LT_VC + be.getOp().ordinal() - BinaryExpr.Op.LowerThanOp.ordinal(),
+                ((Variable) be.getLeft()).getSlot(), constant(((ConstExpr) be.getRight()).getValue()),
+                be.getLine());
+            push(1);
+        } else if (expr instanceof BinaryExpr && ((BinaryExpr) expr).getOp() == BinaryExpr.Op.AddOp
+                && ((BinaryExpr) expr).getLeft() instanceof Variable
+                && ((BinaryExpr) expr).getRight() instanceof Variable) {
+            BinaryExpr be = (BinaryExpr) expr;
+            emit(Opcode.ADD_VV, ((Variable) be.getLeft()).getSlot(),
+                ((Variable) be.getRight()).getSlot(), be.getLine());
+            push(1);
+        } else if (expr instanceof BinaryExpr) {
+            BinaryExpr be = (BinaryExpr) expr;
+            expr(be.getLeft());
+            expr(be.getRight());
+            emit(Opcode.AND + be.getOp().ordinal(), be.getLine());
+            pop(1);
+        } else if (expr instanceof UnaryExpr) {
+            UnaryExpr ue = (UnaryExpr) expr;
+            expr(ue.getExpr());
+            emit(Opcode.UNARY, ue.getOp().ordinal(), ue.getLine());
+        } else if (expr instanceof CastExpr) {
+            CastExpr ce = (CastExpr) expr;
+            expr(ce.getExpr());
+            emit(Opcode.CAST, ce.getOp().ordinal(), ce.getLine());
+        } else if (expr instanceof PropertyAccessExpr) {
+            PropertyAccessExpr pa = (PropertyAccessExpr) expr;
+            expr(pa.getBase());
+            emit(Opcode.GET_PROP, constant(pa));
+        } else if (expr instanceof AccessExpr && ((AccessExpr) expr).getBase() instanceof Variable
+                && ((AccessExpr) expr).getIndex() instanceof Variable) {
+            AccessExpr ae = (AccessExpr) expr;
+            emit(Opcode.INDEX_VV, ((Variable) ae.getBase()).getSlot(),
+                ((Variable) ae.getIndex()).getSlot(), constant(ae));
+            push(1);
+        } else if (expr instanceof AccessExpr) {
+            AccessExpr ae = (AccessExpr) expr;
+            expr(ae.getBase());
+            expr(ae.getIndex());
+            emit(Opcode.INDEX, constant(ae));
+            pop(1);
+        } else {
+            emit(Opcode.EVAL, constant(expr));
+            push(1);
+        }
+    }
+
+    private int constant(Object value) {
+        if (value == null)
+            value = NULL;
+
+        Integer index = constantIndex.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value == NULL ? null : value);
+            constantIndex.put(value, index);
+        }
+
+        return index;
+    }
+
+    private static boolean isNumber(Expr expr) {
+        return expr instanceof ConstExpr && ((ConstExpr) expr).getValue() instanceof NumberValue;
+    }
+
+    private static boolean isLogical(BinaryExpr.Op op) {
+        return op == BinaryExpr.Op.AndOp || op == BinaryExpr.Op.OrOp;
+    }
+
+    private int jump(int opcode) {
+        emit(opcode, -1);
+        return size - 1;
+    }
+
+    private void patch(int operand) {
+        code[operand] = size;
+    }
+
+    private void push(int n) {
+        depth += n;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    private void pop(int n) {
+        depth -= n;
+    }
+
+    private void emit(int... words) {
+        if (size + words.length > code.length)
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + words.length));
+
+        for (int w : words)
+            code[size++] = w;
+    }
+
+}
@@ -0,0 +1,100 @@
+package interpreter.vm;
+
+// Instruções da VM. Cada uma ocupa uma posição em Bytecode.code, seguida
+// dos seus operandos (indicados ao lado). Os operadores binários e as
+// atribuições compostas têm um opcode cada, para que o laço de despacho
+// não precise de um segundo switch sobre o operador.
+public class Opcode {
+
+    public static final int HALT       = 0;  //
+    public static final int CONST      = 1;  // constante
+    public static final int LOAD       = 2;  // slot
+    public static final int STORE      = 3;  // slot
+    public static final int POP        = 4;  //
+    public static final int UNARY      = 5;  // UnaryExpr.Op, linha
+    public static final int CAST       = 6;  // CastExpr.Op, linha
+    public static final int INDEX      = 7;  // constante (AccessExpr)
+    public static final int SET        = 8;  // constante (SetExpr)
+    public static final int PRINT      = 9;  // 1 para println
+    public static final int JUMP       = 10; // destino
+    public static final int JUMP_FALSE = 11; // destino
+    public static final int EVAL       = 12; // constante (Expr)
+    public static final int EXEC       = 13; // constante (Command)
+
+    // BinaryExpr.Op, na mesma ordem do enum; operando: linha. AND e OR
+    // avaliam os dois lados e não são emitidos pelo compilador, que usa
+    // AND_JUMP/OR_JUMP para && e ||.
+    public static final int AND        = 14;
+    public static final int OR         = 15;
+    public static final int EQ         = 16;
+    public static final int NE         = 17;
+    public static final int LT         = 18;
+    public static final int LE         = 19;
+    public static final int GT         = 20;
+    public static final int GE         = 21;
+    public static final int IN         = 22;
+    public static final int NOT_IN     = 23;
+    public static final int ADD        = 24;
+    public static final int SUB        = 25;
+    public static final int MUL        = 26;
+    public static final int DIV        = 27;
+    public static final int MOD        = 28;
+    public static final int POW        = 29;
+
+    // AssignCommand.Op (exceto StdOp), na mesma ordem; operando: linha
+    public static final int ADD_SET    = 30;
+    public static final int SUB_SET    = 31;
+    public static final int MUL_SET    = 32;
+    public static final int DIV_SET    = 33;
+    public static final int MOD_SET    = 34;
+    public static final int POW_SET    = 35;
+
+    // && e ||: se o topo já decide o resultado, troca-o pelo booleano e
+    // salta; senão o descarta e segue para o lado direito, que termina
+    // em TEST.
+    public static final int AND_JUMP   = 36; // linha, destino
+    public static final int OR_JUMP    = 37; // linha, destino
+    public static final int TEST       = 38; // linha
+
+    // Superinstruções: variável comparada a constante numérica (na ordem
+    // de BinaryExpr.Op, de < a >=), var += const / var -= const direto no
+    // slot, soma de duas variáveis e a[i] com base e índice em variáveis.
+    // Os acessos recebem o nó, que guarda o cache do ponto.
+    public static final int LT_VC      = 39; // slot, constante, linha
+    public static final int LE_VC      = 40; // slot, constante, linha
+    public static final int GT_VC      = 41; // slot, constante, linha
+    public static final int GE_VC      = 42; // slot, constante, linha
+    public static final int ADD_VC_SET = 43; // slot, constante, linha
+    public static final int SUB_VC_SET = 44; // slot, constante, linha
+    public static final int ADD_VV     = 45; // slot, slot, linha
+    public static final int INDEX_VV   = 46; // slot, slot, constante (AccessExpr)
+
+    // m.nome pelo cache de shape do nó: troca o topo pelo valor da chave
+    public static final int GET_PROP   = 47; // constante (PropertyAccessExpr)
+
+    static final String[] NAMES = {
+        "HALT", "CONST", "LOAD", "STORE", "POP", "UNARY", "CAST", "INDEX",
+        "SET", "PRINT", "JUMP", "JUMP_FALSE", "EVAL", "EXEC",
+        "AND", "OR", "EQ", "NE", "LT", "LE", "GT", "GE", "IN", "NOT_IN",
+        "ADD", "SUB", "MUL", "DIV", "MOD", "POW",
+        "ADD_SET", "SUB_SET", "MUL_SET", "DIV_SET", "MOD_SET", "POW_SET",
+        "AND_JUMP", "OR_JUMP", "TEST",
+        "LT_VC", "LE_VC", "GT_VC", "GE_VC", "ADD_VC_SET", "SUB_VC_SET",
+        "ADD_VV", "INDEX_VV", "GET_PROP"
+    };
+
+    static final int[] OPERANDS = {
+        0, 1, 1, 1, 0, 2, 2, 1,
+        1, 1, 1, 1, 1, 1,
+        1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
+        1, 1, 1, 1, 1, 1,
+        1, 1, 1, 1, 1, 1,
+        2, 2, 1,
+        3, 3, 3, 3, 3, 3,
+        3, 3, 1
+    };
+
+    private Opcode() {
+    }
+
+}
@@ -0,0 +1,304 @@
+package interpreter.vm;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.Command;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CastExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.PropertyAccessExpr;
+import interpreter.expr.SetExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.util.ExecutionContext;
+import interpreter.value.BooleanValue;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+
+// Executa o bytecode com um único laço de despacho sobre uma pilha de
+// operandos. As operações sobre valores são as mesmas da árvore; cada
+// operador tem o seu opcode e chama direto o método do operador, sem o
+// segundo switch de BinaryExpr.evaluate.
+public class VM {
+
+    private static final UnaryExpr.Op[] UNARY_OPS = UnaryExpr.Op.values();
+    private static final CastExpr.Op[] CAST_OPS = CastExpr.Op.values();
+
+    private VM() {
+    }
+
+    public static void run(Bytecode bc, ExecutionContext ctx) {
+        int[] code = bc.code;
+        Object[] k = bc.constants;
+        Value<?>[] stack = new Value<?>[bc.maxStack];
+        int sp = 0;
+        int pc = 0;
+
+        while (true) {
+            switch (code[pc++]) {
+                case Opcode.HALT:
+                    return;
+                case Opcode.CONST:
+                    stack[sp++] = (Value<?>) k[code[pc++]];
+                    break;
+                case Opcode.LOAD:
+                    stack[sp++] = ctx.read(code[pc++]);
+                    break;
+                case Opcode.STORE:
+                    ctx.write(code[pc++], stack[--sp]);
+                    break;
+                case Opcode.POP:
+                    sp--;
+                    break;
+                case Opcode.UNARY:
+                    stack[sp - 1] = UnaryExpr.evaluate(ctx, code[pc + 1],
+                        UNARY_OPS[code[pc]], stack[sp - 1]);
+                    pc += 2;
+                    break;
+                case Opcode.CAST:
+                    stack[sp - 1] = CastExpr.evaluate(code[pc + 1],
+                        CAST_OPS[code[pc]], stack[sp - 1]);
+                    pc += 2;
+                    break;
+                case Opcode.INDEX: {
+                    Value<?> i = stack[--sp];
+                    Value<?> b = stack[sp - 1];
+                    stack[sp - 1] = ((AccessExpr) k[code[pc++]]).get(b, i);
+                    break;
+                }
+                case Opcode.SET:
+                    ((SetExpr) k[code[pc++]]).setValue(ctx, stack[--sp]);
+                    break;
+                case Opcode.PRINT: {
+                    Value<?> v = stack[--sp];
+                    ctx.out().print(v == null ? "null" : v.toString());
+                    if (code[pc++] != 0)
+                        ctx.out().println();
+                    break;
+                }
+                case Opcode.JUMP:
+                    pc = code[pc];
+                    break;
+                case Opcode.JUMP_FALSE: {
+                    Value<?> v = stack[--sp];
+                    if (v != null && v.eval())
+                        pc++;
+                    else
+                        pc = code[pc];
+                    break;
+                }
+                case Opcode.EVAL:
+                    stack[sp++] = ((Expr) k[code[pc++]]).expr(ctx);
+                    break;
+                case Opcode.EXEC:
+                    ((Command) k[code[pc++]]).execute(ctx);
+                    break;
+                case Opcode.AND: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.andOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.OR: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.orOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.EQ: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.equalOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.NE: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.notEqualOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.LT: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.lowerThanOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.LE: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.lowerEqualOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.GT: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.greaterThanOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.GE: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.greaterEqualOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.IN: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.containsOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.NOT_IN: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.notContainsOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.ADD: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.addOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.SUB: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.subOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.MUL: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.mulOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.DIV: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.divOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.MOD: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.modOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.POW: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = BinaryExpr.powerOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.AND_JUMP:
+                    if (BinaryExpr.truth(code[pc], stack[sp - 1])) {
+                        sp--;
+                        pc += 2;
+                    } else {
+                        stack[sp - 1] = BooleanValue.FALSE;
+                        pc = code[pc + 1];
+                    }
+                    break;
+                case Opcode.OR_JUMP:
+                    if (BinaryExpr.truth(code[pc], stack[sp - 1])) {
+                        stack[sp - 1] = BooleanValue.TRUE;
+                        pc = code[pc + 1];
+                    } else {
+                        sp--;
+                        pc += 2;
+                    }
+                    break;
+                case Opcode.TEST:
+                    stack[sp - 1] = BooleanValue.of(BinaryExpr.truth(code[pc++], stack[sp - 1]));
+                    break;
+                case Opcode.ADD_SET: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = AssignCommand.addOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.SUB_SET: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = AssignCommand.subOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.MUL_SET: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = AssignCommand.mulOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.DIV_SET: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = AssignCommand.divOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.MOD_SET: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = AssignCommand.modOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.POW_SET: {
+                    Value<?> r = stack[--sp];
+                    stack[sp - 1] = AssignCommand.powerOp(code[pc++], stack[sp - 1], r);
+                    break;
+                }
+                case Opcode.LT_VC: {
+                    Value<?> v = ctx.read(code[pc]);
+                    Value<?> c = (Value<?>) k[code[pc + 1]];
+                    stack[sp++] = v instanceof NumberValue
+                        ? BooleanValue.of(((NumberValue) v).intValue() < ((NumberValue) c).intValue())
+                        : BinaryExpr.lowerThanOp(code[pc + 2], v, c);
+                    pc += 3;
+                    break;
+                }
+                case Opcode.LE_VC: {
+                    Value<?> v = ctx.read(code[pc]);
+                    Value<?> c = (Value<?>) k[code[pc + 1]];
+                    stack[sp++] = v instanceof NumberValue
+                        ? BooleanValue.of(((NumberValue) v).intValue() <= ((NumberValue) c).intValue())
+                        : BinaryExpr.lowerEqualOp(code[pc + 2], v, c);
+                    pc += 3;
+                    break;
+                }
+                case Opcode.GT_VC: {
+                    Value<?> v = ctx.read(code[pc]);
+                    Value<?> c = (Value<?>) k[code[pc + 1]];
+                    stack[sp++] = v instanceof NumberValue
+                        ? BooleanValue.of(((NumberValue) v).intValue() > ((NumberValue) c).intValue())
+                        : BinaryExpr.greaterThanOp(code[pc + 2], v, c);
+                    pc += 3;
+                    break;
+                }
+                case Opcode.GE_VC: {
+                    Value<?> v = ctx.read(code[pc]);
+                    Value<?> c = (Value<?>) k[code[pc + 1]];
+                    stack[sp++] = v instanceof NumberValue
+                        ? BooleanValue.of(((NumberValue) v).intValue() >= ((NumberValue) c).intValue())
+                        : BinaryExpr.greaterEqualOp(code[pc + 2], v, c);
+                    pc += 3;
+                    break;
+                }
+                case Opcode.ADD_VC_SET: {
+                    int slot = code[pc];
+                    Value<?> v = ctx.read(slot);
+                    Value<?> c = (Value<?>) k[code[pc + 1]];
+                    ctx.write(slot, v instanceof NumberValue
+                        ? NumberValue.of(((NumberValue) v).intValue() + ((NumberValue) c).intValue())
+                        : AssignCommand.addOp(code[pc + 2], v, c));
+                    pc += 3;
+                    break;
+                }
+                case Opcode.SUB_VC_SET: {
+                    int slot = code[pc];
+                    Value<?> v = ctx.read(slot);
+                    Value<?> c = (Value<?>) k[code[pc + 1]];
+                    ctx.write(slot, v instanceof NumberValue
+                        ? NumberValue.of(((NumberValue) v).intValue() - ((NumberValue) c).intValue())
+                        : AssignCommand.subOp(code[pc + 2], v, c));
+                    pc += 3;
+                    break;
+                }
+                case Opcode.ADD_VV: {
+                    Value<?> l = ctx.read(code[pc]);
+                    Value<?> r = ctx.read(code[pc + 1]);
+                    stack[sp++] = l instanceof NumberValue && r instanceof NumberValue
+                        ? NumberValue.of(((NumberValue) l).intValue() + ((NumberValue) r).intValue())
+                        : BinaryExpr.addOp(code[pc + 2], l, r);
+                    pc += 3;
+                    break;
+                }
+                case Opcode.INDEX_VV:
+                    stack[sp++] = ((AccessExpr) k[code[pc + 2]]).get(ctx.read(code[pc]), ctx.read(code[pc + 1]));
+                    pc += 3;
+                    break;
+                case Opcode.GET_PROP:
+                    stack[sp - 1] = ((PropertyAccessExpr) k[code[pc++]]).get(stack[sp - 1]);
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid opcode " + code[pc - 1]);
+            }
+        }
+    }
+
+}
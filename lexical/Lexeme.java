@@ -2,12 +2,30 @@ package lexical;
 
 public class Lexeme {
 
-    public String token;
     public TokenType type;
+    public int start;
+    public int end;
+    public int number;
+
+    private SourceBuffer source;
+    String token;
 
     public Lexeme(String token, TokenType type) {
         this.token = token;
         this.type = type;
     }
 
+    public Lexeme(SourceBuffer source, TokenType type) {
+        this.source = source;
+        this.type = type;
+    }
+
+    // O texto só é criado quando alguém realmente precisa dele.
+    public String token() {
+        if (token == null)
+            token = source.text(start, end);
+
+        return token;
+    }
+
 }
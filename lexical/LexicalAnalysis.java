@@ -1,31 +1,29 @@
 package lexical;
 
-import java.io.FileInputStream;
-import java.io.PushbackInputStream;
-
 public class LexicalAnalysis implements AutoCloseable {
 
     private int line;
     private SymbolTable st;
-    private PushbackInputStream input;
+    private SourceBuffer input;
+
+    // Trecho e valor numérico do último token lido por scan().
+    private int start;
+    private int end;
+    private int number;
 
     public LexicalAnalysis(String filename) {
-        try {
-            input = new PushbackInputStream(new FileInputStream(filename), 2);
-        } catch (Exception e) {
-            throw new LexicalException("Unable to open file");
-        }
+        this(SourceBuffer.open(filename));
+    }
+
+    public LexicalAnalysis(SourceBuffer input) {
+        this.input = input;
 
         st = new SymbolTable();
         line = 1;
     }
 
     public void close() {
-        try {
-            input.close();
-        } catch (Exception e) {
-            throw new LexicalException("Unable to close file");
-        }
+        input = null;
     }
 
     public int getLine() {
@@ -33,10 +31,39 @@ public class LexicalAnalysis implements AutoCloseable {
     }
 
     public Lexeme nextToken() {
-        Lexeme lex = new Lexeme("", TokenType.END_OF_FILE);
+        TokenType type = scan();
+
+        Lexeme lex = new Lexeme(input, type);
+        lex.start = start;
+        lex.end = end;
+        lex.number = number;
+        return lex;
+    }
+
+    // Varre todo o arquivo de uma vez, guardando os tokens em vetores
+    // de inteiros em vez de criar um Lexeme para cada um.
+    public TokenStream tokenize() {
+        TokenStream ts = new TokenStream(input);
+
+        TokenType type;
+        do {
+            type = scan();
+            ts.add(type, start, end, line);
+        } while (type != TokenType.END_OF_FILE &&
+                 type != TokenType.INVALID_TOKEN &&
+                 type != TokenType.UNEXPECTED_EOF);
+
+        return ts;
+    }
+
+    private TokenType scan() {
+        TokenType type = TokenType.END_OF_FILE;
 
         int state = 1;
         while (state != 14 && state != 15) {
+            if (state == 1)
+                start = end = input.position();
+
             int c = getc();
             // System.out.printf("  [%02d, %03d ('%c')]\n",
             //     state, c, (char) c);
@@ -49,44 +76,46 @@ public class LexicalAnalysis implements AutoCloseable {
                         line++;
                         state = 1;
                     } else if (c == '-') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 6;
                     } else if (c == '.' || c == ',' || c == ';' || c == ':' ||
                                 c == '(' || c == ')' || c == '[' || c == ']' ||
                                 c == '{' || c == '}') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 14;
                     } else if (c == '!') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 7;
                     } else if (c == '&') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 9;
                     } else if (c == '|') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 10;
                     } else if (c == '_' || c == '$' || Character.isLetter(c)) {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 11;
                     } else if (Character.isDigit(c)) {
-                        lex.token += (char) c;
+                        end = input.position();
+                        number = c - '0';
                         state = 12;
                     } else if (c == '+' || c == '=' || c == '<' || c == '>' || c == '%') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 5;
                     } else if (c == '\'') {
+                        start = end = input.position();
                         state = 13;
                     } else if (c == '/') {
                         state = 2;
                     } else if (c == '*') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 4;
                     } else if (c == -1) {
-                        lex.type = TokenType.END_OF_FILE;
+                        type = TokenType.END_OF_FILE;
                         state = 15;
                     } else {
-                        lex.token += (char) c;
-                        lex.type = TokenType.INVALID_TOKEN;
+                        end = input.position();
+                        type = TokenType.INVALID_TOKEN;
                         state = 15;
                     }
 
@@ -95,9 +124,9 @@ public class LexicalAnalysis implements AutoCloseable {
                     if (c == '/') {
                         state = 3;
                     } else {
-                        lex.token += '/';
+                        end = start + 1;
                         if (c == '=') {
-                            lex.token += (char) c;
+                            end = input.position();
                             state = 14;
                         }
                         else {
@@ -116,10 +145,10 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 4:
                     if (c == '=') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 14;
                     } else if(c == '*') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 5;
                     } else {
                         ungetc(c);
@@ -129,7 +158,7 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 5:
                     if (c == '=') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 14;
                     } else {
                         ungetc(c);
@@ -138,7 +167,7 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 6:
                     if (c == '=' || c == '>') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 14;
                     } else {
                         ungetc(c);
@@ -148,7 +177,7 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 7:
                     if (c == '=') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 14;
                     } else if (c == 'i') {
                         state = 8;
@@ -160,7 +189,7 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 8:
                     if (c == 'n') {
-                        lex.token += "in";
+                        end = input.position();
                         state = 14;
                     } else {
                         ungetc(c);
@@ -171,27 +200,27 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 9:
                     if (c == '&') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 14;
                     } else {
-                        lex.type = TokenType.INVALID_TOKEN;
+                        type = TokenType.INVALID_TOKEN;
                         state = 15;
                     }
 
                     break;
                 case 10:
                     if (c == '|') {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 14;
                     } else {
-                        lex.type = TokenType.INVALID_TOKEN;
+                        type = TokenType.INVALID_TOKEN;
                         state = 15;
                     }
                     break;
                 case 11:
                     if (c == '$' || c == '_' ||
                             Character.isLetter(c) || Character.isDigit(c)) {
-                        lex.token += (char) c;
+                        end = input.position();
                         state = 11;
                     } else {
                         ungetc(c);
@@ -201,11 +230,14 @@ public class LexicalAnalysis implements AutoCloseable {
                     break;
                 case 12:
                     if (Character.isDigit(c)) {
-                        lex.token += (char) c;
+                        end = input.position();
+                        number = digit(number, c);
                         state = 12;
                     } else {
                         ungetc(c);
-                        lex.type = TokenType.NUMBER;
+                        if (number < 0)
+                            number = 0;
+                        type = TokenType.NUMBER;
                         state = 15;
                     }
 
@@ -213,15 +245,15 @@ public class LexicalAnalysis implements AutoCloseable {
                 case 13:
                     if (c != '\'') {
                         if(c == -1) {
-                            lex.type = TokenType.END_OF_FILE;
+                            type = TokenType.END_OF_FILE;
                             state = 15;
                         } else {
-                            lex.token += (char) c;
+                            end = input.position();
                             state = 13;
                         }
                         
                     } else {
-                        lex.type = TokenType.TEXT;
+                        type = TokenType.TEXT;
                         state = 15;
                     }
                     break;
@@ -231,26 +263,26 @@ public class LexicalAnalysis implements AutoCloseable {
         }
 
         if (state == 14)
-            lex.type = st.find(lex.token);
+            type = st.find(input, start, end);
 
-        return lex;
+        return type;
+    }
+
+    // Acumula o número direto dos bytes; estouro vira 0, como no
+    // Integer.parseInt usado antes.
+    static int digit(int number, int c) {
+        int d = c - '0';
+        if (number < 0 || number > (Integer.MAX_VALUE - d) / 10)
+            return -1;
+
+        return number * 10 + d;
     }
 
     private int getc() {
-        try {
-            return input.read();
-        } catch (Exception e) {
-            throw new LexicalException("Unable to read file");
-        }
+        return input.getc();
     }
 
     private void ungetc(int c) {
-        if (c != -1) {
-            try {
-                input.unread(c);
-            } catch (Exception e) {
-                throw new LexicalException("Unable to ungetc");
-            }
-        }
+        input.ungetc(c);
     }
 }
@@ -0,0 +1,78 @@
+package lexical;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class SourceBuffer {
+
+    private ByteBuffer data;
+    private int limit;
+    private int pos;
+
+    public SourceBuffer(ByteBuffer data) {
+        this.data = data;
+        this.limit = data.limit();
+        this.pos = 0;
+    }
+
+    public SourceBuffer(byte[] data) {
+        this(ByteBuffer.wrap(data));
+    }
+
+    public SourceBuffer(String text) {
+        this(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    // Mapeia o arquivo inteiro na memória; o mapeamento continua válido
+    // depois que o canal é fechado.
+    public static SourceBuffer open(String filename) {
+        try (FileChannel ch = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE)
+                throw new LexicalException("File too large");
+
+            ByteBuffer bb = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new SourceBuffer(bb);
+        } catch (IOException e) {
+            throw new LexicalException("Unable to open file");
+        }
+    }
+
+    public int getc() {
+        return pos < limit ? (data.get(pos++) & 0xFF) : -1;
+    }
+
+    public void ungetc(int c) {
+        if (c != -1)
+            pos--;
+    }
+
+    public int position() {
+        return pos;
+    }
+
+    public int length() {
+        return limit;
+    }
+
+    public int byteAt(int index) {
+        return data.get(index) & 0xFF;
+    }
+
+    public String text(int start, int end) {
+        if (data.hasArray()) {
+            return new String(data.array(), data.arrayOffset() + start,
+                end - start, StandardCharsets.ISO_8859_1);
+        } else {
+            byte[] tmp = new byte[end - start];
+            data.get(start, tmp);
+            return new String(tmp, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+}
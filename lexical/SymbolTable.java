@@ -1,85 +1,168 @@
 package lexical;
 
-import java.util.HashMap;
-import java.util.Map;
-
+// Reconhece símbolos, operadores e palavras-chave direto do trecho do
+// código fonte, escolhendo pelo tamanho e pelo primeiro caractere. Cada
+// caso compara no máximo uma palavra, sem criar String nem calcular hash.
 public class SymbolTable {
 
-    private Map<String, TokenType> st;
-
     public SymbolTable() {
-        st = new HashMap<String, TokenType>();
-
-        // SYMBOLS
-        st.put(";", TokenType.SEMI_COLON);
-        st.put(":", TokenType.COLON);
-        st.put(",", TokenType.COMMA);
-        st.put(".", TokenType.DOT);
-        st.put("(", TokenType.OPEN_PAR);
-        st.put(")", TokenType.CLOSE_PAR);
-        st.put("{", TokenType.OPEN_CUR);
-        st.put("}", TokenType.CLOSE_CUR);
-        st.put("[", TokenType.OPEN_BRA);
-        st.put("]", TokenType.CLOSE_BRA);
-        st.put("->", TokenType.ARROW);
-
-        // OPERATORS
-        st.put("=", TokenType.ASSIGN);
-        st.put("+=", TokenType.ASSIGN_ADD);
-        st.put("-=", TokenType.ASSIGN_SUB);
-        st.put("*=", TokenType.ASSIGN_MUL);
-        st.put("/=", TokenType.ASSIGN_DIV);
-        st.put("%=", TokenType.ASSIGN_MOD);
-        st.put("**=", TokenType.ASSIGN_POWER);
-        st.put("&&", TokenType.AND);
-        st.put("||", TokenType.OR);
-        st.put("<", TokenType.LOWER);
-        st.put(">", TokenType.GREATER);
-        st.put("<=", TokenType.LOWER_EQUAL);
-        st.put(">=", TokenType.GREATER_EQUAL);
-        st.put("==", TokenType.EQUALS);
-        st.put("!=", TokenType.NOT_EQUALS);
-        st.put("in", TokenType.CONTAINS);
-        st.put("!in", TokenType.NOT_CONTAINS);
-        st.put("+", TokenType.ADD);
-        st.put("-", TokenType.SUB);
-        st.put("*", TokenType.MUL);
-        st.put("/", TokenType.DIV);
-        st.put("%", TokenType.MOD);
-        st.put("**", TokenType.POWER);
-        st.put("!", TokenType.NOT);
-        st.put("as", TokenType.AS);
-
-        // KEYWORDS
-        st.put("def", TokenType.DEF);
-        st.put("print", TokenType.PRINT);
-        st.put("println", TokenType.PRINTLN);
-        st.put("if", TokenType.IF);
-        st.put("else", TokenType.ELSE);
-        st.put("while", TokenType.WHILE);
-        st.put("for", TokenType.FOR);
-        st.put("foreach", TokenType.FOREACH);
-        st.put("Boolean", TokenType.BOOLEAN);
-        st.put("Integer", TokenType.INTEGER);
-        st.put("String", TokenType.STRING);
-        st.put("null", TokenType.NULL);
-        st.put("false", TokenType.FALSE);
-        st.put("true", TokenType.TRUE);
-        st.put("read", TokenType.READ);
-        st.put("empty", TokenType.EMPTY);
-        st.put("size", TokenType.SIZE);
-        st.put("keys", TokenType.KEYS);
-        st.put("values", TokenType.VALUES);
-        st.put("switch", TokenType.SWITCH);
-        st.put("case", TokenType.CASE);
-        st.put("default", TokenType.DEFAULT);
     }
 
     public boolean contains(String token) {
-        return st.containsKey(token);
+        return find(token) != TokenType.NAME;
     }
 
     public TokenType find(String token) {
-        return this.contains(token) ? st.get(token) : TokenType.NAME;
+        return find(new SourceBuffer(token), 0, token.length());
+    }
+
+    public TokenType find(SourceBuffer src, int start, int end) {
+        switch (end - start) {
+            case 1:
+                return find1(src.byteAt(start));
+            case 2:
+                return find2(src, start);
+            case 3:
+                return find3(src, start);
+            case 4:
+                return find4(src, start);
+            case 5:
+                return find5(src, start);
+            case 6:
+                return find6(src, start);
+            case 7:
+                return find7(src, start);
+            default:
+                return TokenType.NAME;
+        }
+    }
+
+    private TokenType find1(int c) {
+        switch (c) {
+            // SYMBOLS
+            case ';': return TokenType.SEMI_COLON;
+            case ':': return TokenType.COLON;
+            case ',': return TokenType.COMMA;
+            case '.': return TokenType.DOT;
+            case '(': return TokenType.OPEN_PAR;
+            case ')': return TokenType.CLOSE_PAR;
+            case '{': return TokenType.OPEN_CUR;
+            case '}': return TokenType.CLOSE_CUR;
+            case '[': return TokenType.OPEN_BRA;
+            case ']': return TokenType.CLOSE_BRA;
+
+            // OPERATORS
+            case '=': return TokenType.ASSIGN;
+            case '<': return TokenType.LOWER;
+            case '>': return TokenType.GREATER;
+            case '+': return TokenType.ADD;
+            case '-': return TokenType.SUB;
+            case '*': return TokenType.MUL;
+            case '/': return TokenType.DIV;
+            case '%': return TokenType.MOD;
+            case '!': return TokenType.NOT;
+            default:  return TokenType.NAME;
+        }
+    }
+
+    private TokenType find2(SourceBuffer src, int start) {
+        int c = src.byteAt(start + 1);
+        switch (src.byteAt(start)) {
+            case '-':
+                return c == '>' ? TokenType.ARROW :
+                       c == '=' ? TokenType.ASSIGN_SUB : TokenType.NAME;
+            case '+':
+                return c == '=' ? TokenType.ASSIGN_ADD : TokenType.NAME;
+            case '*':
+                return c == '=' ? TokenType.ASSIGN_MUL :
+                       c == '*' ? TokenType.POWER : TokenType.NAME;
+            case '/':
+                return c == '=' ? TokenType.ASSIGN_DIV : TokenType.NAME;
+            case '%':
+                return c == '=' ? TokenType.ASSIGN_MOD : TokenType.NAME;
+            case '&':
+                return c == '&' ? TokenType.AND : TokenType.NAME;
+            case '|':
+                return c == '|' ? TokenType.OR : TokenType.NAME;
+            case '<':
+                return c == '=' ? TokenType.LOWER_EQUAL : TokenType.NAME;
+            case '>':
+                return c == '=' ? TokenType.GREATER_EQUAL : TokenType.NAME;
+            case '=':
+                return c == '=' ? TokenType.EQUALS : TokenType.NAME;
+            case '!':
+                return c == '=' ? TokenType.NOT_EQUALS : TokenType.NAME;
+            case 'i':
+                return c == 'n' ? TokenType.CONTAINS :
+                       c == 'f' ? TokenType.IF : TokenType.NAME;
+            case 'a':
+                return c == 's' ? TokenType.AS : TokenType.NAME;
+            default:
+                return TokenType.NAME;
+        }
     }
+
+    private TokenType find3(SourceBuffer src, int start) {
+        switch (src.byteAt(start)) {
+            case '*': return match(src, start, "**=", TokenType.ASSIGN_POWER);
+            case '!': return match(src, start, "!in", TokenType.NOT_CONTAINS);
+            case 'd': return match(src, start, "def", TokenType.DEF);
+            case 'f': return match(src, start, "for", TokenType.FOR);
+            default:  return TokenType.NAME;
+        }
+    }
+
+    private TokenType find4(SourceBuffer src, int start) {
+        switch (src.byteAt(start)) {
+            case 'e': return match(src, start, "else", TokenType.ELSE);
+            case 'n': return match(src, start, "null", TokenType.NULL);
+            case 't': return match(src, start, "true", TokenType.TRUE);
+            case 'r': return match(src, start, "read", TokenType.READ);
+            case 's': return match(src, start, "size", TokenType.SIZE);
+            case 'k': return match(src, start, "keys", TokenType.KEYS);
+            case 'c': return match(src, start, "case", TokenType.CASE);
+            default:  return TokenType.NAME;
+        }
+    }
+
+    private TokenType find5(SourceBuffer src, int start) {
+        switch (src.byteAt(start)) {
+            case 'p': return match(src, start, "print", TokenType.PRINT);
+            case 'w': return match(src, start, "while", TokenType.WHILE);
+            case 'f': return match(src, start, "false", TokenType.FALSE);
+            case 'e': return match(src, start, "empty", TokenType.EMPTY);
+            default:  return TokenType.NAME;
+        }
+    }
+
+    private TokenType find6(SourceBuffer src, int start) {
+        switch (src.byteAt(start)) {
+            case 'S': return match(src, start, "String", TokenType.STRING);
+            case 'v': return match(src, start, "values", TokenType.VALUES);
+            case 's': return match(src, start, "switch", TokenType.SWITCH);
+            default:  return TokenType.NAME;
+        }
+    }
+
+    private TokenType find7(SourceBuffer src, int start) {
+        switch (src.byteAt(start)) {
+            case 'p': return match(src, start, "println", TokenType.PRINTLN);
+            case 'f': return match(src, start, "foreach", TokenType.FOREACH);
+            case 'B': return match(src, start, "Boolean", TokenType.BOOLEAN);
+            case 'I': return match(src, start, "Integer", TokenType.INTEGER);
+            case 'd': return match(src, start, "default", TokenType.DEFAULT);
+            default:  return TokenType.NAME;
+        }
+    }
+
+    // O primeiro caractere já foi comparado pelo switch.
+    private TokenType match(SourceBuffer src, int start, String word, TokenType type) {
+        for (int i = 1; i < word.length(); i++) {
+            if (src.byteAt(start + i) != word.charAt(i))
+                return TokenType.NAME;
+        }
+
+        return type;
+    }
+
 }
@@ -0,0 +1,88 @@
+package lexical;
+
+import java.util.Arrays;
+
+// Tokens de um arquivo inteiro em vetores paralelos: tipo (ordinal do
+// TokenType), início, tamanho e linha. O analisador sintático anda por
+// eles com um índice.
+public class TokenStream {
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private SourceBuffer source;
+    private int[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int size;
+
+    public TokenStream(SourceBuffer source) {
+        int capacity = Math.max(16, source.length() / 4);
+
+        this.source = source;
+        this.types = new int[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.lines = new int[capacity];
+        this.size = 0;
+    }
+
+    void add(TokenType type, int start, int end, int line) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+        }
+
+        types[size] = type.ordinal();
+        starts[size] = start;
+        lengths[size] = end - start;
+        lines[size] = line;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Depois do último token (fim de arquivo ou token inválido) o
+    // índice fica parado nele, como o léxico que repete o END_OF_FILE.
+    private int clamp(int index) {
+        return index < size ? index : size - 1;
+    }
+
+    public TokenType type(int index) {
+        return TYPES[types[clamp(index)]];
+    }
+
+    public int line(int index) {
+        return lines[clamp(index)];
+    }
+
+    // Copia o token para um Lexeme reaproveitado pelo chamador.
+    public void load(int index, Lexeme lex) {
+        index = clamp(index);
+
+        lex.type = TYPES[types[index]];
+        lex.start = starts[index];
+        lex.end = starts[index] + lengths[index];
+        lex.number = lex.type == TokenType.NUMBER ? number(index) : 0;
+        lex.token = null;
+    }
+
+    public Lexeme lexeme() {
+        return new Lexeme(source, TokenType.END_OF_FILE);
+    }
+
+    private int number(int index) {
+        int number = 0;
+        int end = starts[index] + lengths[index];
+        for (int i = starts[index]; i < end; i++)
+            number = LexicalAnalysis.digit(number, source.byteAt(i));
+
+        return number < 0 ? 0 : number;
+    }
+
+}
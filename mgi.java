@@ -1,24 +1,134 @@
+import interpreter.closure.ClosureCompiler;
+import interpreter.closure.CompiledCommand;
 import interpreter.command.Command;
+import interpreter.expr.AccessCache;
+import interpreter.opt.Optimizer;
+import interpreter.tier.TierPolicy;
+import interpreter.util.ExecutionContext;
+import interpreter.jvm.JvmCompiler;
+import interpreter.util.InterpreterException;
+import interpreter.vm.Bytecode;
+import interpreter.vm.BytecodeCompiler;
+import interpreter.vm.VM;
 import lexical.Lexeme;
 import lexical.LexicalAnalysis;
+import lexical.TokenStream;
 import lexical.TokenType;
 import syntatic.SyntaticAnalysis;
+import syntatic.SyntaticException;
 
 public class mgi {
 
+    private static boolean packed = false;
+    private static boolean timing = false;
+    private static String engine = "tree";
+    private static boolean dump = false;
+    private static boolean tiered = false;
+    private static boolean verbose = false;
+    private static int level = 1;
+
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.out.println("Usage: java mgi [miniGroovy file]");
+        String filename = null;
+        for (String arg : args) {
+            if (arg.equals("-packed")) {
+                packed = true;
+            } else if (arg.equals("-time")) {
+                timing = true;
+            } else if (arg.equals("-tree") || arg.equals("-vm") || arg.equals("-closure")
+                    || arg.equals("-jvm")) {
+                engine = arg.substring(1);
+            } else if (arg.equals("-dump")) {
+                dump = true;
+            } else if (arg.equals("-tiered")) {
+                tiered = true;
+            } else if (arg.equals("-verbose")) {
+                verbose = true;
+            } else if (arg.equals("-O0") || arg.equals("-O1") || arg.equals("-O2")) {
+                level = arg.charAt(2) - '0';
+            } else if (arg.startsWith("-") || filename != null) {
+                filename = null;
+                break;
+            } else {
+                filename = arg;
+            }
+        }
+
+        if (filename == null) {
+            System.out.println("Usage: java mgi [options] [miniGroovy file]");
+            System.out.println("  -packed  tokenize the whole file before parsing");
+            System.out.println("  -time    print the time spent in each phase");
+            System.out.println("  -tree    run on the tree-walking interpreter (default)");
+            System.out.println("  -vm      run on the bytecode VM");
+            System.out.println("  -closure run the tree compiled to closures");
+            System.out.println("  -jvm     compile the script to a JVM class and run it");
+            System.out.println("  -dump    print the compiled bytecode to stderr");
+            System.out.println("  -tiered  compile hot tree loops while they run");
+            System.out.println("           (-Dmgi.tier.backedge=N, -Dmgi.tier.compiler=jvm|closure)");
+            System.out.println("  -O0      do not optimize the tree before running it");
+            System.out.println("  -O1      fold constants and drop dead branches (default)");
+            System.out.println("  -O2      also hoist loop invariants and remove dead stores");
+            System.out.println("  -verbose report optimizer decisions to stderr");
+            System.out.println("           (-Dmgi.ic.stats=true also reports the access caches)");
             return;
         }
 
-        try (LexicalAnalysis l = new LexicalAnalysis(args[0])) {
+        try (LexicalAnalysis l = new LexicalAnalysis(filename)) {
             // O código a seguir é dado para testar o interpretador.
             // TODO: descomentar depois que o analisador léxico estiver OK.
             
-            SyntaticAnalysis s = new SyntaticAnalysis(l);
+            long t = System.nanoTime();
+            SyntaticAnalysis s;
+            if (packed) {
+                TokenStream ts = l.tokenize();
+                t = phase("lex", t);
+                s = new SyntaticAnalysis(ts);
+            } else {
+                s = new SyntaticAnalysis(l);
+            }
+
             Command c = s.start();
-            c.execute();
+            t = phase(packed ? "parse" : "lex+parse", t);
+
+            if (level > 0) {
+                c = Optimizer.optimize(c, Optimizer.passes(level, s.getSlots()), verbose ? System.err : null);
+                t = phase("optimize", t);
+            }
+
+            ExecutionContext ctx = new ExecutionContext(s.getSlots());
+            if (tiered)
+                ctx.setTiers(TierPolicy.fromProperties(verbose ? System.err : null));
+            if (engine.equals("vm")) {
+                Bytecode bc = BytecodeCompiler.compile(c);
+                t = phase("compile", t);
+                if (dump)
+                    System.err.print(bc);
+
+                VM.run(bc, ctx);
+            } else if (engine.equals("closure")) {
+                CompiledCommand cc = ClosureCompiler.compile(c);
+                t = phase("compile", t);
+
+                cc.run(ctx);
+            } else if (engine.equals("jvm")) {
+                CompiledCommand cc;
+                try {
+                    cc = JvmCompiler.compile(c, s.getSlots().size())::run;
+                } catch (IllegalStateException e) {
+                    // o script não cabe num método da JVM: roda pelas closures
+                    if (verbose)
+                        System.err.println("[jvm] script not compiled: " + e.getMessage() + "; running on closures");
+                    cc = ClosureCompiler.compile(c);
+                }
+                t = phase("compile", t);
+
+                cc.run(ctx);
+            } else {
+                c.execute(ctx);
+            }
+            phase("exec", t);
+
+            if (AccessCache.STATS)
+                AccessCache.report(System.err);
 
             /*          
             // O código a seguir é usado apenas para testar o analisador léxico.
@@ -27,15 +137,26 @@ public class mgi {
             do {
                 lex = l.nextToken();
                 System.out.printf("%02d: (\"%s\", %s)\n", l.getLine(),
-                    lex.token, lex.type);
+                    lex.token(), lex.type);
             } while (lex.type != TokenType.END_OF_FILE &&
                      lex.type != TokenType.INVALID_TOKEN &&
                      lex.type != TokenType.UNEXPECTED_EOF);
             */
+        } catch (SyntaticException | InterpreterException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
         } catch (Exception e) {
             System.err.println("Internal error: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    private static long phase(String name, long start) {
+        long now = System.nanoTime();
+        if (timing)
+            System.err.printf("%s: %.3f ms\n", name, (now - start) / 1e6);
+
+        return now;
+    }
+
 }
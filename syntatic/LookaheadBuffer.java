@@ -0,0 +1,48 @@
+package syntatic;
+
+import lexical.Lexeme;
+import lexical.LexicalAnalysis;
+
+// Janela circular de tamanho fixo sobre os tokens do léxico. Guarda
+// apenas os últimos tokens consumidos, o suficiente para o rollback de
+// um token usado em procStruct, em vez de todo o histórico do programa.
+class LookaheadBuffer {
+
+    private static final int CAPACITY = 4;
+    private static final int MASK = CAPACITY - 1;
+
+    private LexicalAnalysis lex;
+    private Lexeme[] ring;
+    private long pos;
+    private long filled;
+
+    LookaheadBuffer(LexicalAnalysis lex) {
+        this.lex = lex;
+        this.ring = new Lexeme[CAPACITY];
+        this.ring[0] = lex.nextToken();
+        this.pos = 0;
+        this.filled = 1;
+    }
+
+    Lexeme current() {
+        return ring[(int) (pos & MASK)];
+    }
+
+    Lexeme advance() {
+        pos++;
+        if (pos == filled) {
+            ring[(int) (pos & MASK)] = lex.nextToken();
+            filled++;
+        }
+
+        return current();
+    }
+
+    Lexeme rollback() {
+        assert pos > 0 && filled - pos < CAPACITY;
+
+        pos--;
+        return current();
+    }
+
+}
@@ -2,11 +2,11 @@ package syntatic;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
 
 import interpreter.command.AssignCommand;
 import interpreter.command.BlocksCommand;
 import interpreter.command.Command;
+import interpreter.command.CountedForCommand;
 import interpreter.command.DeclarationCommand;
 import interpreter.command.DeclarationType1Command;
 import interpreter.command.DeclarationType2Command;
@@ -15,13 +15,17 @@ import interpreter.command.IfCommand;
 import interpreter.command.PrintCommand;
 import interpreter.command.WhileCommand;
 import interpreter.expr.AccessExpr;
+import interpreter.expr.ArrayExpr;
 import interpreter.expr.BinaryExpr;
 import interpreter.expr.CastExpr;
 import interpreter.expr.ConstExpr;
 import interpreter.expr.Expr;
+import interpreter.expr.MapExpr;
 import interpreter.expr.SetExpr;
 import interpreter.expr.UnaryExpr;
+import interpreter.expr.VarCompareConst;
 import interpreter.expr.Variable;
+import interpreter.util.SlotTable;
 import interpreter.util.Utils;
 import interpreter.value.BooleanValue;
 import interpreter.value.NumberValue;
@@ -29,77 +33,111 @@ import interpreter.value.TextValue;
 import interpreter.value.Value;
 import lexical.Lexeme;
 import lexical.LexicalAnalysis;
+import lexical.TokenStream;
 import lexical.TokenType;
 
 public class SyntaticAnalysis {
 
     private LexicalAnalysis lex;
+    private TokenStream tokens;
+    private int index;
+    private LookaheadBuffer buffer;
     private Lexeme current;
-    private Stack<Lexeme> history;
-    private Stack<Lexeme> queued;
+    private List<Variable> variables = new ArrayList<Variable>();
+    private SlotTable slots = new SlotTable();
 
     public SyntaticAnalysis(LexicalAnalysis lex) {
         this.lex = lex;
-        this.current = lex.nextToken();
-        this.history = new Stack<Lexeme>();
-        this.queued = new Stack<Lexeme>();
+        this.buffer = new LookaheadBuffer(lex);
+        this.current = buffer.current();
+    }
+
+    // Modo compacto: os tokens já foram todos lidos e o current é só
+    // uma janela reaproveitada sobre os vetores do TokenStream.
+    public SyntaticAnalysis(TokenStream tokens) {
+        this.tokens = tokens;
+        this.index = 0;
+        this.current = tokens.lexeme();
+        tokens.load(index, current);
     }
 
     public Command start() {
         Command cmd = procCode();
         eat(TokenType.END_OF_FILE);
+
+        resolve();
         return cmd;
     }
 
-    private void rollback() {
-        assert !history.isEmpty();
+    public SlotTable getSlots() {
+        return slots;
+    }
+
+    // Dá a cada nome distinto um slot no frame de variáveis.
+    private void resolve() {
+        for (Variable var : variables)
+            var.resolve(slots.slot(var.getName()));
 
-        // System.out.println("Rollback (\"" + current.token + "\", " +
+        variables.clear();
+    }
+
+    private int line() {
+        return tokens != null ? tokens.line(index) : lex.getLine();
+    }
+
+    private void rollback() {
+        // System.out.println("Rollback (\"" + current.token() + "\", " +
         //     current.type + ")");
-        queued.push(current);
-        current = history.pop();
+        if (tokens != null) {
+            assert index > 0;
+            tokens.load(--index, current);
+        } else {
+            current = buffer.rollback();
+        }
     }
 
     private void advance() {
-        // System.out.println("Advanced (\"" + current.token + "\", " +
+        // System.out.println("Advanced (\"" + current.token() + "\", " +
         //     current.type + ")");
-        history.add(current);
-        current = queued.isEmpty() ? lex.nextToken() : queued.pop();
+        if (tokens != null) {
+            tokens.load(++index, current);
+        } else {
+            current = buffer.advance();
+        }
     }
 
     private void eat(TokenType type) {
         // System.out.println("Expected (..., " + type + "), found (\"" + 
-        //     current.token + "\", " + current.type + ")");
+        //     current.token() + "\", " + current.type + ")");
         if (type == current.type) {
-            history.add(current);
-            current = queued.isEmpty() ? lex.nextToken() : queued.pop();
+            advance();
         } else {
             showError();
         }
     }
 
     private void showError() {
-        System.out.printf("%02d: ", lex.getLine());
+        String msg = String.format("%02d: ", line());
 
         switch (current.type) {
             case INVALID_TOKEN:
-                System.out.printf("Lexema inválido [%s]\n", current.token);
+                msg += String.format("Lexema inválido [%s]", current.token());
                 break;
             case UNEXPECTED_EOF:
             case END_OF_FILE:
-                System.out.printf("Fim de arquivo inesperado\n");
+                msg += "Fim de arquivo inesperado";
                 break;
             default:
-                System.out.printf("Lexema não esperado [%s]\n", current.token);
+                msg += String.format("Lexema não esperado [%s]", current.token());
                 break;
         }
 
-        System.exit(1);
+        throw new SyntaticException(msg);
     }
 
     // <code> ::= { <cmd> }
     private BlocksCommand procCode() {
-        int line = lex.getLine();
+        int line = line();
 
         List<Command> cmds = new ArrayList<Command>();
         while (current.type == TokenType.DEF ||
@@ -207,7 +245,7 @@ public class SyntaticAnalysis {
         ArrayList<Variable> lhs = new ArrayList<Variable>();
         lhs.add(procName());
 
-        int line = lex.getLine();
+        int line = line();
 
         ArrayList<Expr> rhs = new ArrayList<Expr>();
         if (current.type == TokenType.ASSIGN) {
@@ -241,7 +279,7 @@ public class SyntaticAnalysis {
         eat(TokenType.OPEN_PAR);
         lhs.add(procName());
 
-        int line = lex.getLine();
+        int line = line();
 
         while (current.type == TokenType.COMMA) {
             advance();
@@ -279,7 +317,7 @@ public class SyntaticAnalysis {
             showError();
         }
 
-        int line = lex.getLine();
+        int line = line();
         eat(TokenType.OPEN_PAR);
         Expr expr = procExpr();
         eat(TokenType.CLOSE_PAR);
@@ -291,7 +329,7 @@ public class SyntaticAnalysis {
     // <if> ::= if '(' <expr> ')' <body> [ else <body> ]
     private IfCommand procIf() {
         eat(TokenType.IF);
-        int line = lex.getLine();
+        int line = line();
         eat(TokenType.OPEN_PAR);
         Expr expr = procExpr();
         eat(TokenType.CLOSE_PAR);
@@ -313,7 +351,7 @@ public class SyntaticAnalysis {
     // <while> ::= while '(' <expr> ')' <body>
     private WhileCommand procWhile() {
         eat(TokenType.WHILE);
-        int line = lex.getLine();
+        int line = line();
         eat(TokenType.OPEN_PAR);
         Expr expr = procExpr();
         eat(TokenType.CLOSE_PAR);
@@ -326,7 +364,7 @@ public class SyntaticAnalysis {
     // <for> ::= for '(' [ [ def ] <assign> { ',' <assign> } ] ] ';' <expr> ';' [ <assign> { ',' <assign> } ] ')' <body>
     private ForCommand procFor() {
         eat(TokenType.FOR);
-        int line = lex.getLine();
+        int line = line();
         eat(TokenType.OPEN_PAR);
 
         // parte da esquerda: def ou assign ou nada (proximo ;)
@@ -374,7 +412,7 @@ public class SyntaticAnalysis {
         eat(TokenType.CLOSE_PAR);
 
         Command cmds = procBody();
-        ForCommand wc = new ForCommand(line, dc, ac, expr, acRight, cmds);
+        ForCommand wc = CountedForCommand.create(line, dc, ac, expr, acRight, cmds);
 
         return wc;
     }
@@ -401,7 +439,7 @@ public class SyntaticAnalysis {
     private AssignCommand procAssign() {
         Expr left = procExpr();
         if (!(left instanceof SetExpr))
-            Utils.abort(lex.getLine());
+            Utils.abort(line());
 
         AssignCommand.Op op = null;
         switch (current.type) {
@@ -430,11 +468,11 @@ public class SyntaticAnalysis {
                 showError();
         }
         advance();
-        int line = lex.getLine();
+        int line = line();
 
         Expr right = procExpr();
         
-        AssignCommand ac = new AssignCommand(line, (SetExpr) left, op, right);
+        AssignCommand ac = AssignCommand.create(line, (SetExpr) left, op, right);
         return ac;
     }
 
@@ -456,7 +494,7 @@ public class SyntaticAnalysis {
                     op = BinaryExpr.Op.OrOp;
                     break;
             }
-            int line = lex.getLine();
+            int line = line();
 
             Expr right = procRel();
 
@@ -522,11 +560,11 @@ public class SyntaticAnalysis {
                     op = BinaryExpr.Op.EqualOp;
                     break;
             }
-            int line = lex.getLine();
+            int line = line();
 
             Expr right = procCast();
 
-            BinaryExpr bexpr = new BinaryExpr(line, left, op, right);
+            BinaryExpr bexpr = VarCompareConst.create(line, left, op, right);
             left = bexpr;
         }
 
@@ -554,7 +592,7 @@ public class SyntaticAnalysis {
                     showError();
                     break;
             }
-            int line = lex.getLine();
+            int line = line();
             CastExpr bexpr = new CastExpr(line, expr, op);
             expr = bexpr;
 
@@ -582,7 +620,7 @@ public class SyntaticAnalysis {
                     op = BinaryExpr.Op.SubOp;
                     break;
             }
-            int line = lex.getLine();
+            int line = line();
 
             Expr right = procTerm();
 
@@ -616,7 +654,7 @@ public class SyntaticAnalysis {
                     op = BinaryExpr.Op.ModOp;
                     break;
             }
-            int line = lex.getLine();
+            int line = line();
 
             Expr right = procPower();
 
@@ -643,7 +681,7 @@ public class SyntaticAnalysis {
                     op = BinaryExpr.Op.PowerOp;
                     break;
             }
-            int line = lex.getLine();
+            int line = line();
 
             Expr right = procFactor();
 
@@ -666,7 +704,7 @@ public class SyntaticAnalysis {
             advance();
             op = UnaryExpr.Op.NegOp;
         }
-        int line = lex.getLine();
+        int line = line();
 
         if (current.type == TokenType.OPEN_PAR) {
             advance();
@@ -691,13 +729,13 @@ public class SyntaticAnalysis {
         while (current.type == TokenType.DOT
                 || current.type == TokenType.OPEN_BRA) {
             Expr index;
-            int line = lex.getLine();
+            int line = line();
 
             if (current.type == TokenType.DOT) {
                 advance();
 
-                Variable var = procName();
-                String name = var.getName();
+                String name = current.token();
+                eat(TokenType.NAME);
 
                 TextValue tv = new TextValue(name);
                 ConstExpr ce = new ConstExpr(line, tv);
@@ -709,7 +747,7 @@ public class SyntaticAnalysis {
                 eat(TokenType.CLOSE_BRA);
             }
 
-            AccessExpr ae = new AccessExpr(line, base, index);
+            AccessExpr ae = AccessExpr.create(line, base, index);
             base = ae;
         }
 
@@ -726,7 +764,7 @@ public class SyntaticAnalysis {
             case NUMBER:
             case TEXT:
                 Value<?> v = procConst();
-                int line = lex.getLine();
+                int line = line();
                 ConstExpr cexpr = new ConstExpr(line, v);
                 expr = cexpr;
                 break;
@@ -742,7 +780,7 @@ public class SyntaticAnalysis {
                 procSwitch();
                 break;
             case OPEN_BRA:
-                procStruct();
+                expr = procStruct();
                 break;
             case NAME:
                 SetExpr sexpr = procLValue();
@@ -762,11 +800,11 @@ public class SyntaticAnalysis {
             advance();
         } else if (current.type == TokenType.FALSE) {
             advance();
-            BooleanValue bv = new BooleanValue(false);
+            BooleanValue bv = BooleanValue.FALSE;
             v = bv;
         } else if (current.type == TokenType.TRUE) {
             advance();
-            BooleanValue bv = new BooleanValue(true);
+            BooleanValue bv = BooleanValue.TRUE;
             v = bv;
         } else if (current.type == TokenType.NUMBER) {
             NumberValue nv = procNumber();
@@ -804,7 +842,7 @@ public class SyntaticAnalysis {
                 showError();
         }
         advance();
-        int line = lex.getLine();
+        int line = line();
 
         eat(TokenType.OPEN_PAR);
         Expr expr = procExpr();
@@ -838,73 +876,82 @@ public class SyntaticAnalysis {
     }
 
     // <struct> ::= '[' [ ':' | <expr> { ',' <expr> } | <name> ':' <expr> { ',' <name> ':' <expr> } ] ']'
-    private void procStruct() {
+    private Expr procStruct() {
         eat(TokenType.OPEN_BRA);
+        int line = line();
 
+        Expr expr = null;
         if (current.type == TokenType.COLON) {
             advance();
+
+            expr = new MapExpr(line, new ArrayList<String>(), new ArrayList<Expr>());
         } else if (current.type == TokenType.CLOSE_BRA) {
-            // Do nothing.
+            expr = new ArrayExpr(line, new ArrayList<Expr>());
         } else {
-            Lexeme prev = current;
+            TokenType prev = current.type;
             advance();
 
-            if (prev.type == TokenType.NAME &&
+            if (prev == TokenType.NAME &&
                     current.type == TokenType.COLON) {
                 rollback();
 
-                procName();
+                List<String> keys = new ArrayList<String>();
+                List<Expr> values = new ArrayList<Expr>();
+
+                keys.add(current.token());
+                eat(TokenType.NAME);
                 eat(TokenType.COLON);
-                procExpr();
+                values.add(procExpr());
 
                 while (current.type == TokenType.COMMA) {
                     advance();
 
-                    procName();
+                    keys.add(current.token());
+                    eat(TokenType.NAME);
                     eat(TokenType.COLON);
-                    procExpr();
+                    values.add(procExpr());
                 }
+
+                expr = new MapExpr(line, keys, values);
             } else {
                 rollback();
 
-                procExpr();
+                List<Expr> items = new ArrayList<Expr>();
+                items.add(procExpr());
 
                 while (current.type == TokenType.COMMA) {
                     advance();
-                    procExpr();
+                    items.add(procExpr());
                 }
+
+                expr = new ArrayExpr(line, items);
             }
         }
 
         eat(TokenType.CLOSE_BRA);
+        return expr;
     }
 
     private Variable procName() {
-        String tmp = current.token;
+        String tmp = current.token();
         eat(TokenType.NAME);
-        int line = lex.getLine();
+        int line = line();
 
         Variable var = new Variable(line, tmp);
+        variables.add(var);
         return var;
     }
 
     private NumberValue procNumber() {
-        String tmp = current.token;
+        int v = current.number;
         eat(TokenType.NUMBER);
 
-        int v;
-        try {
-            v = Integer.parseInt(tmp);
-        } catch (Exception e) {
-            v = 0;
-        }
-
-        NumberValue nv = new NumberValue(v);
+        NumberValue nv = NumberValue.of(v);
         return nv;
     }
 
     private TextValue procText() {
-        String tmp = current.token;
+        String tmp = current.token();
 
         eat(TokenType.TEXT);
 
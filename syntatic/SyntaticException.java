@@ -0,0 +1,11 @@
+package syntatic;
+
+public class SyntaticException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SyntaticException(String msg) {
+        super(msg);
+    }
+
+}